@@ -0,0 +1,33 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.benchmarks.app;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
+
+/**
+ * the module of the benchmarks' application, found by the scan of the packagesToScan
+ */
+public class AppModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        bind(Backend.class).to(InMemoryBackend.class).in(Singleton.class);
+    }
+
+    static class InMemoryBackend implements Backend {
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.benchmarks.app;
+
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.guice.annotation.PathPrefix;
+import com.vaadin.guice.annotation.SharedRequestHandler;
+
+/**
+ * 32 request handlers for the benchmarks, found by the scan of the packagesToScan. They are stateless and declare
+ * the path they handle, so they are shared between sessions if the servlet shares request handlers and added to
+ * every session behind one dispatcher otherwise.
+ */
+public final class RequestHandlers {
+
+    private RequestHandlers() {
+    }
+
+    @SharedRequestHandler
+    public abstract static class PathHandler implements RequestHandler {
+        private final String path;
+
+        PathHandler(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public boolean handleRequest(VaadinSession session, VaadinRequest request, VaadinResponse response) {
+            return path.equals(request.getPathInfo());
+        }
+    }
+
+    @PathPrefix("/handler-01")
+    public static class Handler01 extends PathHandler {
+        public Handler01() {
+            super("/handler-01");
+        }
+    }
+
+    @PathPrefix("/handler-02")
+    public static class Handler02 extends PathHandler {
+        public Handler02() {
+            super("/handler-02");
+        }
+    }
+
+    @PathPrefix("/handler-03")
+    public static class Handler03 extends PathHandler {
+        public Handler03() {
+            super("/handler-03");
+        }
+    }
+
+    @PathPrefix("/handler-04")
+    public static class Handler04 extends PathHandler {
+        public Handler04() {
+            super("/handler-04");
+        }
+    }
+
+    @PathPrefix("/handler-05")
+    public static class Handler05 extends PathHandler {
+        public Handler05() {
+            super("/handler-05");
+        }
+    }
+
+    @PathPrefix("/handler-06")
+    public static class Handler06 extends PathHandler {
+        public Handler06() {
+            super("/handler-06");
+        }
+    }
+
+    @PathPrefix("/handler-07")
+    public static class Handler07 extends PathHandler {
+        public Handler07() {
+            super("/handler-07");
+        }
+    }
+
+    @PathPrefix("/handler-08")
+    public static class Handler08 extends PathHandler {
+        public Handler08() {
+            super("/handler-08");
+        }
+    }
+
+    @PathPrefix("/handler-09")
+    public static class Handler09 extends PathHandler {
+        public Handler09() {
+            super("/handler-09");
+        }
+    }
+
+    @PathPrefix("/handler-10")
+    public static class Handler10 extends PathHandler {
+        public Handler10() {
+            super("/handler-10");
+        }
+    }
+
+    @PathPrefix("/handler-11")
+    public static class Handler11 extends PathHandler {
+        public Handler11() {
+            super("/handler-11");
+        }
+    }
+
+    @PathPrefix("/handler-12")
+    public static class Handler12 extends PathHandler {
+        public Handler12() {
+            super("/handler-12");
+        }
+    }
+
+    @PathPrefix("/handler-13")
+    public static class Handler13 extends PathHandler {
+        public Handler13() {
+            super("/handler-13");
+        }
+    }
+
+    @PathPrefix("/handler-14")
+    public static class Handler14 extends PathHandler {
+        public Handler14() {
+            super("/handler-14");
+        }
+    }
+
+    @PathPrefix("/handler-15")
+    public static class Handler15 extends PathHandler {
+        public Handler15() {
+            super("/handler-15");
+        }
+    }
+
+    @PathPrefix("/handler-16")
+    public static class Handler16 extends PathHandler {
+        public Handler16() {
+            super("/handler-16");
+        }
+    }
+
+    @PathPrefix("/handler-17")
+    public static class Handler17 extends PathHandler {
+        public Handler17() {
+            super("/handler-17");
+        }
+    }
+
+    @PathPrefix("/handler-18")
+    public static class Handler18 extends PathHandler {
+        public Handler18() {
+            super("/handler-18");
+        }
+    }
+
+    @PathPrefix("/handler-19")
+    public static class Handler19 extends PathHandler {
+        public Handler19() {
+            super("/handler-19");
+        }
+    }
+
+    @PathPrefix("/handler-20")
+    public static class Handler20 extends PathHandler {
+        public Handler20() {
+            super("/handler-20");
+        }
+    }
+
+    @PathPrefix("/handler-21")
+    public static class Handler21 extends PathHandler {
+        public Handler21() {
+            super("/handler-21");
+        }
+    }
+
+    @PathPrefix("/handler-22")
+    public static class Handler22 extends PathHandler {
+        public Handler22() {
+            super("/handler-22");
+        }
+    }
+
+    @PathPrefix("/handler-23")
+    public static class Handler23 extends PathHandler {
+        public Handler23() {
+            super("/handler-23");
+        }
+    }
+
+    @PathPrefix("/handler-24")
+    public static class Handler24 extends PathHandler {
+        public Handler24() {
+            super("/handler-24");
+        }
+    }
+
+    @PathPrefix("/handler-25")
+    public static class Handler25 extends PathHandler {
+        public Handler25() {
+            super("/handler-25");
+        }
+    }
+
+    @PathPrefix("/handler-26")
+    public static class Handler26 extends PathHandler {
+        public Handler26() {
+            super("/handler-26");
+        }
+    }
+
+    @PathPrefix("/handler-27")
+    public static class Handler27 extends PathHandler {
+        public Handler27() {
+            super("/handler-27");
+        }
+    }
+
+    @PathPrefix("/handler-28")
+    public static class Handler28 extends PathHandler {
+        public Handler28() {
+            super("/handler-28");
+        }
+    }
+
+    @PathPrefix("/handler-29")
+    public static class Handler29 extends PathHandler {
+        public Handler29() {
+            super("/handler-29");
+        }
+    }
+
+    @PathPrefix("/handler-30")
+    public static class Handler30 extends PathHandler {
+        public Handler30() {
+            super("/handler-30");
+        }
+    }
+
+    @PathPrefix("/handler-31")
+    public static class Handler31 extends PathHandler {
+        public Handler31() {
+            super("/handler-31");
+        }
+    }
+
+    @PathPrefix("/handler-32")
+    public static class Handler32 extends PathHandler {
+        public Handler32() {
+            super("/handler-32");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.vaadin.flow.component.UI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation rate of route targets during navigation, once through the {@link GuiceInstantiator} and once
+ * through {@link Injector#getInstance(Class)}, which is what the instantiator used to do. The route
+ * targets are not bound in a module, as is usual for views, so the injector resolves them as
+ * just-in-time bindings. For comparison, the instantiator also creates a type bound in a module and
+ * returns a type in the {@link UIScope}, where every thread has its own UI.
+ * Use '-t' to change the number of threads or run {@link ThreadScaling}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class GuiceInstantiatorBenchmark {
+
+    private static final Class<?>[] ROUTE_TARGETS = {MainView.class, OrdersView.class, CustomersView.class};
+
+    private Injector injector;
+    private GuiceInstantiator instantiator;
+
+    @State(Scope.Thread)
+    public static class CurrentUI {
+        final GuiceVaadinSession session = StandIns.session();
+        final UI ui = new UI();
+
+        @Setup
+        public void setup() {
+            StandIns.setCurrent(session, ui);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final UIScope uiScope = new UIScope();
+
+        injector = Guice.createInjector(binder -> {
+            binder.bind(ReportsView.class);
+            binder.bind(Toolbar.class).in(uiScope);
+        });
+
+        final GuiceVaadinServlet servlet = new GuiceVaadinServlet() {
+            @Override
+            Injector getInjector() {
+                return injector;
+            }
+        };
+
+        instantiator = new GuiceInstantiator(new GuiceVaadinServletService(servlet, null));
+    }
+
+    @Benchmark
+    public void injector(Blackhole blackhole) {
+        for (Class<?> routeTarget : ROUTE_TARGETS) {
+            blackhole.consume(injector.getInstance(routeTarget));
+        }
+    }
+
+    @Benchmark
+    public void instantiator(Blackhole blackhole) {
+        for (Class<?> routeTarget : ROUTE_TARGETS) {
+            blackhole.consume(instantiator.getOrCreate(routeTarget));
+        }
+    }
+
+    @Benchmark
+    public Object bound() {
+        return instantiator.getOrCreate(ReportsView.class);
+    }
+
+    @Benchmark
+    public Object uiScoped(CurrentUI currentUI) {
+        return instantiator.getOrCreate(Toolbar.class);
+    }
+
+    @Singleton
+    public static class Backend {
+    }
+
+    public static class MainView {
+    }
+
+    public static class OrdersView {
+        @Inject
+        public OrdersView(Backend backend) {
+        }
+    }
+
+    public static class CustomersView {
+        @Inject
+        public CustomersView(Backend backend, MainView mainView) {
+        }
+    }
+
+    public static class ReportsView {
+        @Inject
+        public ReportsView(Backend backend) {
+        }
+    }
+
+    public static class Toolbar {
+    }
+}
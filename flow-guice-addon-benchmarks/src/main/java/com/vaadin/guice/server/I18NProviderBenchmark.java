@@ -0,0 +1,166 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.vaadin.flow.i18n.I18NProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Translation throughput as seen by components, which ask the {@link GuiceInstantiator} for the I18NProvider on
+ * every translation. The provider parses its bundles of {@value #KEYS} keys per locale when it is created, like
+ * providers based on resource bundles do. 'unscoped' is the I18NProvider bound without a scope, as the VaadinModule
+ * used to do, so every translation creates a provider. 'shared' is the singleton the VaadinModule binds now and
+ * 'cached' adds the translation cache of {@link com.vaadin.guice.annotation.CacheTranslations}. 'label' translates
+ * a key without arguments, 'message' formats a pattern with two arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class I18NProviderBenchmark {
+
+    static final int KEYS = 2_000;
+
+    private static final int USED_KEYS = 256;
+    private static final List<Locale> LOCALES = List.of(Locale.ENGLISH, Locale.GERMAN, Locale.FRENCH, Locale.ITALIAN);
+
+    @Param({"unscoped", "shared", "cached"})
+    public String binding;
+
+    private Supplier<I18NProvider> i18NProvider;
+
+    @State(Scope.Thread)
+    public static class Keys {
+        int next;
+
+        String next() {
+            return "key." + (next++ & (USED_KEYS - 1));
+        }
+    }
+
+    @Setup
+    public void setup() {
+        if (binding.equals("unscoped")) {
+            final Injector injector = Guice.createInjector(binder -> binder.bind(I18NProvider.class).to(BundleI18NProvider.class));
+
+            i18NProvider = () -> injector.getInstance(I18NProvider.class);
+            return;
+        }
+
+        final long translationCacheSize = binding.equals("cached") ? 100_000 : 0;
+        final Injector[] injector = new Injector[1];
+
+        final GuiceVaadinServlet servlet = new GuiceVaadinServlet() {
+            @Override
+            Injector getInjector() {
+                return injector[0];
+            }
+
+            @Override
+            Optional<Class<? extends I18NProvider>> getI18NProvider() {
+                return Optional.of(BundleI18NProvider.class);
+            }
+
+            @Override
+            long getTranslationCacheSize() {
+                return translationCacheSize;
+            }
+        };
+
+        injector[0] = Guice.createInjector(new VaadinModule(servlet));
+
+        final GuiceInstantiator instantiator = new GuiceInstantiator(new GuiceVaadinServletService(servlet, null));
+
+        i18NProvider = instantiator::getI18NProvider;
+    }
+
+    @Benchmark
+    public String label(Keys keys) {
+        return i18NProvider.get().getTranslation(keys.next(), Locale.GERMAN);
+    }
+
+    @Benchmark
+    public String message(Keys keys) {
+        return i18NProvider.get().getTranslation(keys.next(), Locale.GERMAN, "Joe", 42);
+    }
+
+    public static class BundleI18NProvider implements I18NProvider {
+
+        private final Map<Locale, Properties> bundles = new HashMap<>();
+
+        public BundleI18NProvider() {
+            for (Locale locale : LOCALES) {
+                final StringBuilder bundle = new StringBuilder();
+
+                for (int i = 0; i < KEYS; i++) {
+                    bundle.append("key.").append(i).append('=').append(locale).append(" message ").append(i)
+                            .append(" for {0}, {1,number,integer} items\n");
+                }
+
+                final Properties properties = new Properties();
+
+                try {
+                    properties.load(new StringReader(bundle.toString()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                bundles.put(locale, properties);
+            }
+        }
+
+        @Override
+        public List<Locale> getProvidedLocales() {
+            return LOCALES;
+        }
+
+        @Override
+        public String getTranslation(String key, Locale locale, Object... params) {
+            final String pattern = bundles.get(locale).getProperty(key);
+
+            return params.length > 0 ? new MessageFormat(pattern, locale).format(params) : pattern;
+        }
+    }
+}
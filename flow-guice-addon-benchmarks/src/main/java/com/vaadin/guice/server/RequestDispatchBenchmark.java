@@ -0,0 +1,93 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.guice.benchmarks.app.RequestHandlers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The time it takes to find the handler of a request among the 32 request handlers of the app in
+ * com.vaadin.guice.benchmarks.app, once by offering the request to all handlers in turn, as Flow does with the
+ * handlers of a session, and once through the {@link RequestHandlerIndex} of their path prefixes. The request goes to
+ * the first handler offered, to the last or to none, like most requests, which are Flow's own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestDispatchBenchmark {
+
+    @Param({"/handler-01", "/handler-32", "/VAADIN/static/client.js"})
+    public String path;
+
+    private RequestHandler[] handlers;
+    private RequestHandler dispatcher;
+    private VaadinRequest request;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        final List<Class<? extends RequestHandler>> types = Stream.of(RequestHandlers.class.getClasses())
+                .filter(type -> !type.equals(RequestHandlers.PathHandler.class))
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .<Class<? extends RequestHandler>>map(type -> type.asSubclass(RequestHandler.class))
+                .collect(Collectors.toList());
+
+        handlers = new RequestHandler[types.size()];
+
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i] = types.get(i).getConstructor().newInstance();
+        }
+
+        dispatcher = RequestHandlerIndex.of(types).dispatcher(handlers);
+        request = StandIns.request(path);
+    }
+
+    @Benchmark
+    public boolean inTurn() throws IOException {
+        for (RequestHandler handler : handlers) {
+            if (handler.handleRequest(null, request, null)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Benchmark
+    public boolean indexed() throws IOException {
+        return dispatcher.handleRequest(null, request, null);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time it takes to find the types of interest to the {@link GuiceVaadinServlet} on a
+ * restart, once by scanning the classpath and once by reading them from a warm {@link ScanResultCache}.
+ * The default package is the whole of Vaadin Flow, to have a realistic number of classes to scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScanResultCacheBenchmark {
+
+    @Param("com.vaadin.flow")
+    public String packagesToScan;
+
+    private String[] packages;
+    private ClassLoader classLoader;
+    private ScanResultCache scanResultCache;
+
+    @Setup
+    public void setup() throws IOException {
+        packages = packagesToScan.split(",");
+        classLoader = getClass().getClassLoader();
+
+        final Path directory = Files.createTempDirectory("vaadin-guice-benchmark");
+
+        directory.toFile().deleteOnExit();
+
+        scanResultCache = new ScanResultCache(directory);
+
+        //warm up the cache
+        scanResultCache.get(classLoader, packages, () -> ClasspathScanner.scan(classLoader, packages));
+    }
+
+    @Benchmark
+    public ScanResult withoutCache() {
+        return ClasspathScanner.scan(classLoader, packages);
+    }
+
+    @Benchmark
+    public ScanResult withCache() {
+        return scanResultCache.get(classLoader, packages, () -> {
+            throw new IllegalStateException("cache was expected to be warm");
+        });
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link UIScope} and the {@link VaadinSessionScope}, for hits, which look up an existing
+ * instance, and for misses, which create the instances of {@value #KEYS} keys in a UI or session that holds
+ * none yet. A UI miss includes detaching the UI, which releases its instances, since that is what makes
+ * the next lookups misses. Hits share one session between all threads, every thread has its own UI.
+ * Misses give every thread its own session. Run {@link ThreadScaling} to measure from 1 to N threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScopeBenchmark {
+
+    static final int KEYS = 16;
+
+    @State(Scope.Benchmark)
+    public static class Scopes {
+        final GuiceVaadinSession sharedSession = StandIns.session();
+        final UIScope uiScope = new UIScope();
+        final VaadinSessionScope vaadinSessionScope = new VaadinSessionScope();
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Provider<Object>[] uiScoped = new Provider[KEYS];
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Provider<Object>[] sessionScoped = new Provider[KEYS];
+
+        @Setup
+        public void setup() {
+            for (int i = 0; i < KEYS; i++) {
+                final Key<Object> key = Key.get(Object.class, Names.named(String.valueOf(i)));
+
+                uiScoped[i] = uiScope.scope(key, Object::new);
+                sessionScoped[i] = vaadinSessionScope.scope(key, Object::new);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SharedSession {
+        final UI ui = new UI();
+
+        @Setup
+        public void setup(Scopes scopes) {
+            StandIns.setCurrent(scopes.sharedSession, ui);
+
+            scopes.uiScoped[0].get();
+            scopes.sessionScoped[0].get();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OwnSession {
+        final GuiceVaadinSession session = StandIns.session();
+        final UI ui = new UI();
+
+        @Setup
+        public void setup() {
+            StandIns.setCurrent(session, ui);
+        }
+    }
+
+    @Benchmark
+    public Object uiScopeHit(Scopes scopes, SharedSession sharedSession) {
+        return scopes.uiScoped[0].get();
+    }
+
+    @Benchmark
+    public Object vaadinSessionScopeHit(Scopes scopes, SharedSession sharedSession) {
+        return scopes.sessionScoped[0].get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void uiScopeMiss(Scopes scopes, OwnSession ownSession, Blackhole blackhole) {
+        for (Provider<Object> provider : scopes.uiScoped) {
+            blackhole.consume(provider.get());
+        }
+
+        ComponentUtil.onComponentDetach(ownSession.ui);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void vaadinSessionScopeMiss(Scopes scopes, OwnSession ownSession, Blackhole blackhole) {
+        for (Provider<Object> provider : scopes.sessionScoped) {
+            blackhole.consume(provider.get());
+        }
+
+        ownSession.session.getScopeStorage().clearVaadinSessionScopedInstances(ScopeCleanUp.INLINE);
+    }
+}
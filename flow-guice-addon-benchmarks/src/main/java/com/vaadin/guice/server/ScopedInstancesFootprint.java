@@ -0,0 +1,112 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the heap it takes to hold the scoped instances of one UI in the {@link ScopedInstances} and
+ * in the maps they used to be held in. This is not a JMH benchmark, since it measures retained memory
+ * rather than time, run it with
+ * 'java -cp target/benchmarks.jar com.vaadin.guice.server.ScopedInstancesFootprint [instances per UI...]'.
+ * The instances themselves are shared and not included.
+ */
+public class ScopedInstancesFootprint {
+
+    private static final int UIS = 20_000;
+
+    public static void main(String[] args) {
+        final int[] instancesPerUI = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{50, 100, 200};
+
+        System.out.printf("%-16s%16s%24s%22s%n", "instances/UI", "HashMap", "ConcurrentHashMap", "ScopedInstances");
+
+        for (int instances : instancesPerUI) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            final Key<Object>[] keys = new Key[instances];
+            final int[] slots = new int[instances];
+            final ScopedInstances.Slots slotsOfKeys = new ScopedInstances.Slots();
+
+            for (int i = 0; i < instances; i++) {
+                keys[i] = Key.get(Object.class, Names.named(String.valueOf(i)));
+                slots[i] = slotsOfKeys.of(keys[i]);
+            }
+
+            final Object instance = new Object();
+            final Provider<Object> provider = () -> instance;
+
+            final long hashMap = bytesPerUI(ui -> fill(new HashMap<>(), keys, instance));
+            final long concurrentHashMap = bytesPerUI(ui -> fill(new ConcurrentHashMap<>(), keys, instance));
+            final long scopedInstances = bytesPerUI(ui -> {
+                final ScopedInstances scoped = new ScopedInstances(NoMetrics.INSTANCE);
+
+                for (int i = 0; i < keys.length; i++) {
+                    scoped.get(slots[i], keys[i], provider, NoMetrics.INSTANCE);
+                }
+
+                return scoped;
+            });
+
+            System.out.printf("%-16d%14d B%22d B%20d B%n", instances, hashMap, concurrentHashMap, scopedInstances);
+        }
+    }
+
+    private static Object fill(Map<Key<?>, Object> map, Key<Object>[] keys, Object instance) {
+        for (Key<Object> key : keys) {
+            map.put(key, instance);
+        }
+
+        return map;
+    }
+
+    private static long bytesPerUI(IntFunction<Object> storageOfUI) {
+        final Object[] uis = new Object[UIS];
+
+        final long before = usedHeap();
+
+        for (int i = 0; i < UIS; i++) {
+            uis[i] = storageOfUI.apply(i);
+        }
+
+        final long after = usedHeap();
+
+        //keep the storage reachable until the heap was measured
+        if (uis[UIS - 1] == null) {
+            throw new IllegalStateException();
+        }
+
+        return (after - before) / UIS;
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
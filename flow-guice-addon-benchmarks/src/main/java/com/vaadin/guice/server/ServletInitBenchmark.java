@@ -0,0 +1,121 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.SessionInitEvent;
+import com.vaadin.guice.annotation.PackagesToScan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.servlet.ServletException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.MoreCollectors.onlyElement;
+
+/**
+ * The time {@link GuiceVaadinServlet#init(jakarta.servlet.ServletConfig)} takes for the small application
+ * in com.vaadin.guice.benchmarks.app, from the scan of the packagesToScan to the initialized
+ * {@link com.vaadin.flow.server.VaadinServletService}, and the time sessionInit takes for a new session: it creates
+ * the 32 request handlers of the app for the session, or nothing if 'shareRequestHandlers' makes the servlet share them.
+ * The servlet runs on {@link StandIns} instead of a servlet container.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ServletInitBenchmark {
+
+    private static final int REQUEST_HANDLERS = 32;
+
+    @State(Scope.Benchmark)
+    public static class InitializedServlet {
+        final BenchmarkServlet servlet = new BenchmarkServlet();
+        GuiceVaadinServletService service;
+
+        @Param({"false", "true"})
+        public boolean shareRequestHandlers;
+
+        @Setup(Level.Trial)
+        public void setup() throws ServletException, IOException {
+            servlet.init(StandIns.servletConfig("benchmark", Map.of("shareRequestHandlers", String.valueOf(shareRequestHandlers))));
+            service = new GuiceVaadinServletService(servlet, null);
+
+            final GuiceVaadinSession session = StandIns.session();
+
+            servlet.sessionInit(new SessionInitEvent(service, session, null));
+
+            //the handlers are behind one dispatcher, either in the session or in the service
+            final ServiceInitEvent serviceInitEvent = new ServiceInitEvent(service);
+
+            servlet.getServiceInitListeners().forEach(listener -> listener.serviceInit(serviceInitEvent));
+
+            final RequestHandler dispatcher = Stream
+                    .concat(session.getRequestHandlers().stream(), serviceInitEvent.getAddedRequestHandlers())
+                    .collect(onlyElement());
+
+            if (!dispatcher.handleRequest(session, StandIns.request("/handler-" + REQUEST_HANDLERS), null)) {
+                throw new IllegalStateException("expected the " + REQUEST_HANDLERS + " request handlers of the app to be scanned");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            servlet.destroy();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public GuiceVaadinServlet init() throws ServletException {
+        final BenchmarkServlet servlet = new BenchmarkServlet();
+
+        servlet.init(StandIns.servletConfig("benchmark", Map.of()));
+        servlet.destroy();
+
+        return servlet;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public GuiceVaadinSession sessionInit(InitializedServlet initializedServlet) {
+        final GuiceVaadinSession session = StandIns.session();
+
+        initializedServlet.servlet.sessionInit(new SessionInitEvent(initializedServlet.service, session, null));
+
+        return session;
+    }
+
+    @PackagesToScan("com.vaadin.guice.benchmarks.app")
+    public static class BenchmarkServlet extends GuiceVaadinServlet {
+    }
+}
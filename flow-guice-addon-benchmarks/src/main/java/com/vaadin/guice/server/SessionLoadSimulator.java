@@ -0,0 +1,372 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.SessionDestroyEvent;
+import com.vaadin.guice.annotation.UIScope;
+import com.vaadin.guice.annotation.VaadinSessionScope;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Simulates a node serving thousands of sessions with several UIs each against an injector with the
+ * {@link VaadinModule}, to size nodes by how the scopes behave under load. This is not a JMH benchmark, run it with
+ * 'java -cp target/benchmarks.jar com.vaadin.guice.server.SessionLoadSimulator [sessions=5000] [uis=3]
+ * [threads=8] [seconds=30] [lifetime=20] [uiCloseRate=0.01] [cleanUpQueue=0]'.
+ * <p>
+ * First, the heap taken by a session, its session-scoped instances, a UI and its UI-scoped instances is measured
+ * while all sessions are opened. Then every thread serves requests for random sessions, holding a lock per session
+ * like Vaadin does. A request looks up a view depending on UI- and session-scoped instances in a random UI of its
+ * session. At the given rate, a request closes its UI and opens a new one instead. Sessions expire after an
+ * exponentially distributed lifetime with the given mean in seconds and are replaced by new ones, so the number
+ * of sessions stays the same. Throughput, request latencies and the time the scopes take to clean up an expired
+ * session are reported, latency percentiles are upper bounds exact to a factor of two. With a cleanUpQueue greater
+ * than 0, the instances of expired sessions are released by a {@link ScopeCleanUp} in the background, and the
+ * deepest its queue got is reported.
+ * <p>
+ * Sessions and UIs are {@link StandIns}, the current session and UI are set per request like Vaadin does.
+ */
+public class SessionLoadSimulator {
+
+    private final int sessions;
+    private final int uisPerSession;
+    private final int threads;
+    private final int seconds;
+    private final double meanLifetimeNanos;
+    private final double uiCloseRate;
+
+    private final GuiceVaadinServlet servlet;
+    private final Injector injector;
+    private final GuiceVaadinServletService service;
+    private final AtomicReferenceArray<SimulatedSession> liveSessions;
+
+    private final Histogram requestLatency = new Histogram();
+    private final Histogram destroyDuration = new Histogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder closedUIs = new LongAdder();
+    private final LongAdder expiredSessions = new LongAdder();
+    private final AtomicInteger maxCleanUpQueueDepth = new AtomicInteger();
+    private final ScopeCleanUp cleanUp;
+
+    SessionLoadSimulator(Map<String, String> arguments) {
+        sessions = Integer.parseInt(arguments.getOrDefault("sessions", "5000"));
+        uisPerSession = Integer.parseInt(arguments.getOrDefault("uis", "3"));
+        threads = Integer.parseInt(arguments.getOrDefault("threads", "8"));
+        seconds = Integer.parseInt(arguments.getOrDefault("seconds", "30"));
+        meanLifetimeNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(arguments.getOrDefault("lifetime", "20")));
+        uiCloseRate = Double.parseDouble(arguments.getOrDefault("uiCloseRate", "0.01"));
+
+        servlet = new GuiceVaadinServlet() {
+            @Override
+            Injector getInjector() {
+                return injector;
+            }
+        };
+
+        injector = Guice.createInjector(new VaadinModule(servlet));
+        service = new GuiceVaadinServletService(servlet, null);
+        liveSessions = new AtomicReferenceArray<>(sessions);
+
+        cleanUp = ScopeCleanUp.background(Integer.parseInt(arguments.getOrDefault("cleanUpQueue", "0")), new GuiceVaadinMetrics() {
+            @Override
+            public ScopeMetrics forScope(String scope) {
+                return NoMetrics.INSTANCE;
+            }
+
+            @Override
+            public TypeMetrics forInstantiatedType(Class<?> type) {
+                return NoMetrics.INSTANCE;
+            }
+
+            @Override
+            public void cleanedUp(int released, int queued) {
+                maxCleanUpQueueDepth.accumulateAndGet(queued, Math::max);
+            }
+        }, DestroyCallbacks.DIRECT);
+
+        servlet.getUiScope().setCleanUp(cleanUp);
+        servlet.getVaadinSessionScope().setCleanUp(cleanUp);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final Map<String, String> arguments = new HashMap<>();
+
+        for (String arg : args) {
+            final String[] keyAndValue = arg.split("=", 2);
+
+            arguments.put(keyAndValue[0], keyAndValue[1]);
+        }
+
+        new SessionLoadSimulator(arguments).run();
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("%d sessions with %d UIs each, %d threads for %d s%n", sessions, uisPerSession, threads, seconds);
+
+        measureFootprint();
+        simulateLoad();
+        destroyAll();
+    }
+
+    /*
+     * opens all sessions step by step, so the heap of every step can be told apart
+     */
+    private void measureFootprint() {
+        final long empty = usedHeap();
+
+        for (int i = 0; i < sessions; i++) {
+            liveSessions.set(i, new SimulatedSession(uisPerSession, false));
+        }
+
+        final long withSessions = usedHeap();
+
+        forEachSession(session -> {
+            StandIns.setCurrent(session.vaadinSession, null);
+            injector.getInstance(Cart.class);
+            injector.getInstance(Preferences.class);
+        });
+
+        final long withSessionScoped = usedHeap();
+
+        forEachSession(session -> {
+            for (int i = 0; i < uisPerSession; i++) {
+                session.uis[i] = new UI();
+            }
+        });
+
+        final long withUIs = usedHeap();
+
+        forEachSession(session -> {
+            for (UI ui : session.uis) {
+                StandIns.setCurrent(session.vaadinSession, ui);
+                injector.getInstance(MainView.class);
+            }
+        });
+
+        final long withUIScoped = usedHeap();
+
+        StandIns.setCurrent(null, null);
+
+        final double uis = (double) sessions * uisPerSession;
+
+        System.out.printf("%-36s%8.0f B%n", "heap per session:", (withSessions - empty) / (double) sessions);
+        System.out.printf("%-36s%8.0f B%n", "heap per session-scoped instances:", (withSessionScoped - withSessions) / (double) sessions);
+        System.out.printf("%-36s%8.0f B%n", "heap per UI:", (withUIs - withSessionScoped) / uis);
+        System.out.printf("%-36s%8.0f B%n", "heap per UI-scoped instances:", (withUIScoped - withUIs) / uis);
+
+        final long now = System.nanoTime();
+
+        forEachSession(session -> session.expiresAt = now + lifetime());
+    }
+
+    private void simulateLoad() throws InterruptedException {
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            final Thread worker = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    request();
+                }
+
+                StandIns.setCurrent(null, null);
+            }, "simulated-request-" + i);
+
+            worker.start();
+            workers.add(worker);
+        }
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        final HistogramSnapshot latency = requestLatency.snapshot();
+        final HistogramSnapshot destroy = destroyDuration.snapshot();
+
+        System.out.printf("throughput: %.0f requests/s%n", requests.sum() / (double) seconds);
+        System.out.printf("latency:    p50 %d us, p90 %d us, p99 %d us, max %d us%n",
+                micros(latency.getP50()), micros(latency.getP90()), micros(latency.getP99()), micros(latency.getMax()));
+        System.out.printf("UIs closed: %d, sessions expired: %d%n", closedUIs.sum(), expiredSessions.sum());
+        System.out.printf("clean-up per expired session: p50 %d us, p99 %d us, max %d us%n",
+                micros(destroy.getP50()), micros(destroy.getP99()), micros(destroy.getMax()));
+
+        if (cleanUp.getQueueSize() > 0) {
+            System.out.printf("background clean-up: max queue depth %d%n", maxCleanUpQueueDepth.get());
+        }
+    }
+
+    private void request() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int index = random.nextInt(sessions);
+
+        SimulatedSession session;
+
+        while (true) {
+            session = liveSessions.get(index);
+            session.lock.lock();
+
+            if (!session.destroyed) {
+                break;
+            }
+
+            //expired while this thread was waiting for it
+            session.lock.unlock();
+        }
+
+        try {
+            final long start = System.nanoTime();
+
+            if (start >= session.expiresAt) {
+                destroy(session);
+                expiredSessions.increment();
+
+                final SimulatedSession replacement = new SimulatedSession(uisPerSession, true);
+
+                replacement.expiresAt = start + lifetime();
+                liveSessions.set(index, replacement);
+                return;
+            }
+
+            final int uiIndex = random.nextInt(uisPerSession);
+
+            if (random.nextDouble() < uiCloseRate) {
+                ComponentUtil.onComponentDetach(session.uis[uiIndex]);
+                session.uis[uiIndex] = new UI();
+                closedUIs.increment();
+            }
+
+            StandIns.setCurrent(session.vaadinSession, session.uis[uiIndex]);
+            injector.getInstance(MainView.class);
+
+            requestLatency.record(System.nanoTime() - start);
+            requests.increment();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /*
+     * what happens to the scopes when Vaadin destroys a session
+     */
+    private void destroy(SimulatedSession session) {
+        final long start = System.nanoTime();
+        final SessionDestroyEvent event = new SessionDestroyEvent(service, session.vaadinSession);
+
+        servlet.getUiScope().sessionDestroy(event);
+        servlet.getVaadinSessionScope().sessionDestroy(event);
+
+        destroyDuration.record(System.nanoTime() - start);
+
+        session.destroyed = true;
+    }
+
+    private void destroyAll() {
+        final long start = System.nanoTime();
+
+        forEachSession(this::destroy);
+        cleanUp.close();
+
+        System.out.printf("clean-up of all %d sessions on shutdown: %d ms%n", sessions, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private long lifetime() {
+        return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanLifetimeNanos);
+    }
+
+    private void forEachSession(Consumer<SimulatedSession> action) {
+        for (int i = 0; i < sessions; i++) {
+            action.accept(liveSessions.get(i));
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class SimulatedSession {
+        final ReentrantLock lock = new ReentrantLock();
+        final GuiceVaadinSession vaadinSession = StandIns.session();
+        final UI[] uis;
+        volatile long expiresAt = Long.MAX_VALUE;
+        volatile boolean destroyed;
+
+        SimulatedSession(int uis, boolean openUIs) {
+            this.uis = new UI[uis];
+
+            if (openUIs) {
+                Arrays.setAll(this.uis, i -> new UI());
+            }
+        }
+    }
+
+    @VaadinSessionScope
+    public static class Cart {
+    }
+
+    @VaadinSessionScope
+    public static class Preferences {
+    }
+
+    @UIScope
+    public static class Toolbar {
+        @Inject
+        public Toolbar(Preferences preferences) {
+        }
+    }
+
+    @UIScope
+    public static class Navigation {
+    }
+
+    @UIScope
+    public static class OrderGrid {
+        @Inject
+        public OrderGrid(Cart cart) {
+        }
+    }
+
+    public static class MainView {
+        @Inject
+        public MainView(Toolbar toolbar, Navigation navigation, OrderGrid orderGrid, Cart cart) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinSession;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lightweight stand-ins for what a servlet container and a browser would provide, so the benchmarks
+ * run without either. Sessions have no service, UIs are never attached, and servlet configs and contexts
+ * are proxies that only know their init parameters and attributes.
+ */
+final class StandIns {
+
+    private StandIns() {
+    }
+
+    static GuiceVaadinSession session() {
+        return new GuiceVaadinSession(null);
+    }
+
+    /**
+     * makes the given session and UI the current ones of this thread. They are only weakly referenced
+     * as current instances, so the caller has to keep them.
+     */
+    static void setCurrent(VaadinSession session, UI ui) {
+        //setting the UI resets the current session to the UI's session
+        UI.setCurrent(ui);
+        VaadinSession.setCurrent(session);
+    }
+
+    /**
+     * returns a request for the given path, relative to the servlet
+     */
+    static VaadinRequest request(String pathInfo) {
+        return proxy(VaadinRequest.class, Map.of(), Map.of("getPathInfo", pathInfo));
+    }
+
+    static ServletConfig servletConfig(String servletName, Map<String, String> initParameters) {
+        final ServletContext servletContext = proxy(ServletContext.class, Map.of(), Map.of(
+                "getClassLoader", StandIns.class.getClassLoader()
+        ));
+
+        return proxy(ServletConfig.class, initParameters, Map.of(
+                "getServletName", servletName,
+                "getServletContext", servletContext
+        ));
+    }
+
+    /**
+     * returns a proxy that answers the given methods with the given values, knows its init parameters and
+     * attributes and returns defaults for everything else
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, String> initParameters, Map<String, Object> answers) {
+        final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        return (T) Proxy.newProxyInstance(StandIns.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            final String name = method.getName();
+
+            if (answers.containsKey(name)) {
+                return answers.get(name);
+            }
+
+            switch (name) {
+                case "getInitParameter":
+                    return initParameters.get((String) args[0]);
+                case "getInitParameterNames":
+                    return Collections.enumeration(initParameters.keySet());
+                case "getAttribute":
+                    return attributes.get((String) args[0]);
+                case "getAttributeNames":
+                    return Collections.enumeration(attributes.keySet());
+                case "setAttribute":
+                    if (args[1] != null) {
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    }
+                    //setting null removes the attribute
+                case "removeAttribute":
+                    attributes.remove((String) args[0]);
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stand-in";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == Enumeration.class) {
+            return Collections.emptyEnumeration();
+        } else {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.NotFoundException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generates a classpath of jars like that of a large application, so the startup of the
+ * {@link GuiceVaadinServlet} can be measured at realistic sizes. Below {@value #ROOT_PACKAGE}, every jar has
+ * its own package tree of the given depth, with three sub-packages per level. The classes are spread over
+ * the jars and packages, they are:
+ * <ul>
+ * <li>modules, each binding an interface of its own to an implementation of its own</li>
+ * <li>UIs</li>
+ * <li>SessionInitListeners and SessionDestroyListeners</li>
+ * <li>plain classes, which the scan has to look at but ignores, making up the rest</li>
+ * </ul>
+ */
+final class SyntheticClasspath {
+
+    static final String ROOT_PACKAGE = "com.example.synthetic";
+
+    private final int classes;
+    private final int jars;
+    private final int modules;
+    private final int uis;
+    private final int listeners;
+    private final int packageDepth;
+
+    private final ClassPool classPool = new ClassPool(true);
+    private final List<List<CtClass>> classesByJar = new ArrayList<>();
+    private int count;
+
+    SyntheticClasspath(int classes, int jars, int modules, int uis, int listeners, int packageDepth) {
+        checkArgument(jars > 0, "at least one jar is needed");
+        checkArgument(
+                classes >= modules * 3 + uis + listeners,
+                "%s classes are not enough for %s modules with 2 bound classes each, %s UIs and %s listeners",
+                classes, modules, uis, listeners
+        );
+
+        this.classes = classes;
+        this.jars = jars;
+        this.modules = modules;
+        this.uis = uis;
+        this.listeners = listeners;
+        this.packageDepth = packageDepth;
+
+        for (int i = 0; i < jars; i++) {
+            classesByJar.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * writes the jars to the given directory and returns their URLs
+     */
+    List<URL> writeTo(Path directory) {
+        try {
+            generate();
+
+            final List<URL> urls = new ArrayList<>();
+
+            for (int jar = 0; jar < jars; jar++) {
+                final Path path = directory.resolve("synthetic-" + jar + ".jar");
+
+                try (JarOutputStream jarOutputStream = new JarOutputStream(Files.newOutputStream(path))) {
+                    final Set<String> directories = new HashSet<>();
+
+                    for (CtClass ctClass : classesByJar.get(jar)) {
+                        write(jarOutputStream, ctClass, directories);
+                    }
+                }
+
+                urls.add(path.toUri().toURL());
+            }
+
+            return urls;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (CannotCompileException | NotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void generate() throws CannotCompileException, NotFoundException {
+        for (int i = 0; i < modules; i++) {
+            final CtClass service = add(classPool.makeInterface(nextName("Service")));
+
+            final CtClass implementation = add(classPool.makeClass(nextName("ServiceImpl")));
+            implementation.addInterface(service);
+            implementation.addConstructor(CtNewConstructor.defaultConstructor(implementation));
+
+            final CtClass module = add(classPool.makeClass(nextName("Module"), classPool.get("com.google.inject.AbstractModule")));
+            module.addConstructor(CtNewConstructor.defaultConstructor(module));
+            module.addMethod(CtNewMethod.make(
+                    "protected void configure() { bind(" + service.getName() + ".class).to(" + implementation.getName() + ".class); }",
+                    module
+            ));
+        }
+
+        for (int i = 0; i < uis; i++) {
+            final CtClass ui = add(classPool.makeClass(nextName("UI"), classPool.get("com.vaadin.flow.component.UI")));
+            ui.addConstructor(CtNewConstructor.defaultConstructor(ui));
+        }
+
+        for (int i = 0; i < listeners; i++) {
+            final CtClass listener = add(classPool.makeClass(nextName("Listener")));
+            listener.addConstructor(CtNewConstructor.defaultConstructor(listener));
+
+            if (i % 2 == 0) {
+                listener.addInterface(classPool.get("com.vaadin.flow.server.SessionInitListener"));
+                listener.addMethod(CtNewMethod.make("public void sessionInit(com.vaadin.flow.server.SessionInitEvent event) { }", listener));
+            } else {
+                listener.addInterface(classPool.get("com.vaadin.flow.server.SessionDestroyListener"));
+                listener.addMethod(CtNewMethod.make("public void sessionDestroy(com.vaadin.flow.server.SessionDestroyEvent event) { }", listener));
+            }
+        }
+
+        while (count < classes) {
+            final CtClass plain = add(classPool.makeClass(nextName("Plain")));
+            plain.addConstructor(CtNewConstructor.defaultConstructor(plain));
+            plain.addField(CtField.make("private int value;", plain));
+            plain.addMethod(CtNewMethod.make("public int getValue() { return value; }", plain));
+        }
+    }
+
+    /**
+     * returns the name of the next class, which lies in the jar and package tree given by its number
+     */
+    private String nextName(String simpleName) {
+        final int number = count;
+        final StringBuilder name = new StringBuilder(ROOT_PACKAGE).append(".jar").append(number % jars);
+
+        for (int level = 0, rest = number / jars; level < packageDepth; level++, rest /= 3) {
+            name.append(".level").append(level).append('_').append(rest % 3);
+        }
+
+        return name.append('.').append(simpleName).append(number).toString();
+    }
+
+    private CtClass add(CtClass ctClass) {
+        classesByJar.get(count % jars).add(ctClass);
+        count++;
+
+        return ctClass;
+    }
+
+    /*
+     * class loaders only find the jars of a package by its directory entries, so every directory is written once
+     */
+    private static void write(JarOutputStream jarOutputStream, CtClass ctClass, Set<String> directories) throws IOException, CannotCompileException {
+        final String path = ctClass.getName().replace('.', '/') + ".class";
+
+        for (int slash = path.indexOf('/'); slash != -1; slash = path.indexOf('/', slash + 1)) {
+            final String directory = path.substring(0, slash + 1);
+
+            if (directories.add(directory)) {
+                jarOutputStream.putNextEntry(new JarEntry(directory));
+                jarOutputStream.closeEntry();
+            }
+        }
+
+        jarOutputStream.putNextEntry(new JarEntry(path));
+        jarOutputStream.write(ctClass.toBytecode());
+        jarOutputStream.closeEntry();
+
+        ctClass.detach();
+    }
+}
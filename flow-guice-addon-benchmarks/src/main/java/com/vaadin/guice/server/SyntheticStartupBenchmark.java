@@ -0,0 +1,124 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.servlet.ServletException;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The time {@link GuiceVaadinServlet#init(jakarta.servlet.ServletConfig)} takes end to end, from the scan to
+ * the built injector, on a {@link SyntheticClasspath} of the given size. Every init gets a new class loader,
+ * so loading the classes is part of it, as it is on a real startup. Use '-p classes=...' and the other
+ * parameters to describe an application, to break the time down into phases, add '-p startupReport=true'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SyntheticStartupBenchmark {
+
+    @Param({"1000", "5000", "15000"})
+    public int classes;
+
+    @Param("40")
+    public int jars;
+
+    @Param("50")
+    public int modules;
+
+    @Param("20")
+    public int uis;
+
+    @Param("20")
+    public int listeners;
+
+    @Param("6")
+    public int packageDepth;
+
+    @Param("false")
+    public boolean startupReport;
+
+    private Path directory;
+    private URL[] urls;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("vaadin-guice-synthetic");
+
+        final List<URL> jarUrls = new SyntheticClasspath(classes, jars, modules, uis, listeners, packageDepth).writeTo(directory);
+
+        urls = jarUrls.toArray(new URL[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public GuiceVaadinServlet init() throws ServletException, IOException {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextClassLoader = thread.getContextClassLoader();
+
+        try (URLClassLoader classLoader = new URLClassLoader(urls, getClass().getClassLoader())) {
+            //the servlet scans the context class loader
+            thread.setContextClassLoader(classLoader);
+
+            final GuiceVaadinServlet servlet = new GuiceVaadinServlet();
+
+            servlet.init(StandIns.servletConfig("synthetic", initParameters()));
+            servlet.destroy();
+
+            return servlet;
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private Map<String, String> initParameters() {
+        return startupReport
+                ? Map.of("packagesToScan", SyntheticClasspath.ROOT_PACKAGE, "startupReport", directory.resolve("startup.json").toString())
+                : Map.of("packagesToScan", SyntheticClasspath.ROOT_PACKAGE);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks whose names match the given regular expression, by default {@link ScopeBenchmark} and
+ * {@link GuiceInstantiatorBenchmark}, with 1, 2, 4 and so on up to as many threads as there are processors,
+ * and writes the results of every thread count to '&lt;prefix&gt;-&lt;threads&gt;t.json', so runs of different
+ * releases can be compared. Run it with
+ * 'java -cp target/benchmarks.jar com.vaadin.guice.server.ThreadScaling [regex] [prefix]'.
+ */
+public class ThreadScaling {
+
+    public static void main(String[] args) throws RunnerException {
+        final String include = args.length > 0 ? args[0] : "ScopeBenchmark|GuiceInstantiatorBenchmark";
+        final String prefix = args.length > 1 ? args[1] : "jmh-result";
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+
+        int threads = 1;
+
+        while (true) {
+            new Runner(new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(prefix + "-" + threads + "t.json")
+                    .build()
+            ).run();
+
+            if (threads == processors) {
+                break;
+            }
+
+            threads = Math.min(threads * 2, processors);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+
+/**
+ * Compares the heap it takes to hold the translations of {@value #LOCALES} locales with 20000 keys each as
+ * ResourceBundles, as Flow's DefaultI18NProvider does, as Properties and in the {@link CompactI18NProvider},
+ * and how long loading them takes. The translations are generated like those of a real application: a fifth
+ * has arguments and a third of the keys are not translated, so they are equal in all locales.
+ * This is not a JMH benchmark, since it measures retained memory rather than time, run it with
+ * 'java -cp target/benchmarks.jar com.vaadin.guice.server.TranslationsFootprint [keys per locale]'.
+ */
+public class TranslationsFootprint {
+
+    private static final int LOCALES = 14;
+    private static final String BUNDLE = "vaadin-i18n/translations";
+
+    public static void main(String[] args) throws IOException {
+        final int keys = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        final Path root = Files.createTempDirectory("translations");
+        final List<Locale> locales = writeBundles(root, keys);
+        final URLClassLoader classLoader = new URLClassLoader(new URL[]{toURL(root)}, null);
+
+        System.out.printf("%d locales with %d keys each%n", LOCALES, keys);
+        System.out.printf("%-22s%16s%14s%n", "", "heap", "load time");
+
+        measure("ResourceBundle", () -> load(locales, locale -> ResourceBundle.getBundle(BUNDLE.replace('/', '.'), locale, classLoader)));
+        measure("Properties", () -> load(locales, locale -> properties(root, locale)));
+        measure("CompactI18NProvider", () -> CompactI18NProvider.load(classLoader, BUNDLE, locales));
+    }
+
+    private static List<Locale> writeBundles(Path root, int keys) throws IOException {
+        final String[] languages = {"de", "fr", "it", "es", "pt", "nl", "sv", "da", "fi", "pl", "cs", "hu", "ro"};
+        final List<Locale> locales = new ArrayList<>();
+
+        locales.add(Locale.ENGLISH);
+
+        for (int i = 0; locales.size() < LOCALES; i++) {
+            locales.add(new Locale(languages[i]));
+        }
+
+        Files.createDirectories(root.resolve(BUNDLE).getParent());
+
+        for (Locale locale : locales) {
+            try (Writer writer = Files.newBufferedWriter(root.resolve(BUNDLE + "_" + locale + ".properties"), StandardCharsets.UTF_8)) {
+                for (int key = 0; key < keys; key++) {
+                    final String language = key % 3 == 0 ? "en" : locale.getLanguage();
+
+                    writer.write("view" + key / 50 + ".label" + key + "=");
+                    writer.write(key % 5 == 0
+                            ? language + " message " + key + " for {0} with {1,number,integer} items\n"
+                            : language + " label " + key + "\n");
+                }
+            }
+        }
+
+        return locales;
+    }
+
+    private static Map<Locale, Object> load(List<Locale> locales, Function<Locale, Object> loader) {
+        final Map<Locale, Object> bundles = new HashMap<>();
+
+        locales.forEach(locale -> bundles.put(locale, loader.apply(locale)));
+
+        return bundles;
+    }
+
+    private static Properties properties(Path root, Locale locale) {
+        final Properties properties = new Properties();
+
+        try (java.io.Reader reader = Files.newBufferedReader(root.resolve(BUNDLE + "_" + locale + ".properties"), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return properties;
+    }
+
+    private static void measure(String name, java.util.function.Supplier<Object> loader) {
+        final long before = usedHeap();
+        final long start = System.nanoTime();
+
+        final Object translations = loader.get();
+
+        final long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        final long after = usedHeap();
+
+        //keep the translations reachable until the heap was measured
+        if (translations == null) {
+            throw new IllegalStateException();
+        }
+
+        ResourceBundle.clearCache(TranslationsFootprint.class.getClassLoader());
+
+        System.out.printf("%-22s%13d KB%11d ms%n", name, (after - before) / 1024, loadMillis);
+    }
+
+    private static URL toURL(Path path) {
+        try {
+            return path.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
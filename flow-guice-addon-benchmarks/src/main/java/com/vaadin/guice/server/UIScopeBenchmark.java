@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.vaadin.flow.component.UI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of looking up an existing instance in the {@link UIScope}, compared to the
+ * {@link SynchronizedUIScope}. All threads share one session, every thread has its own UI,
+ * like a user with several open tabs. Use '-t' to change the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class UIScopeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Session {
+        final GuiceVaadinSession vaadinSession = new GuiceVaadinSession(null);
+
+        final Provider<Object> uiScoped = new UIScope().scope(Key.get(Object.class), Object::new);
+
+        final Provider<Object> synchronizedUIScoped = new SynchronizedUIScope().scope(Key.get(Object.class), Object::new);
+    }
+
+    @State(Scope.Thread)
+    public static class CurrentUI {
+        final UI ui = new UI();
+
+        @Setup
+        public void setup(Session session) {
+            StandIns.setCurrent(session.vaadinSession, ui);
+        }
+    }
+
+    @Benchmark
+    public Object uiScope(Session session, CurrentUI currentUI) {
+        return session.uiScoped.get();
+    }
+
+    @Benchmark
+    public Object synchronizedUIScope(Session session, CurrentUI currentUI) {
+        return session.synchronizedUIScoped.get();
+    }
+}
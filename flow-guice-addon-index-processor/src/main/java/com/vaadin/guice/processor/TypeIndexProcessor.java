@@ -0,0 +1,238 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that writes the list of all concrete types the
+ * {@code GuiceVaadinServlet} is interested in to {@value #INDEX_LOCATION}. When
+ * this index is present on the classpath, the servlet reads it instead of
+ * scanning the classpath for these types at startup.
+ * <p>
+ * The index is a properties-file mapping the binary name of every concrete
+ * {@code Module}, {@code UI}, {@code RequestHandler}, {@code SessionInitListener},
+ * {@code SessionDestroyListener}, {@code ServiceDestroyListener},
+ * {@code VaadinServiceInitListener} and {@code I18NProvider} and of every concrete
+ * type annotated with {@code @Route} to a comma separated list of the types it
+ * implements and the annotations it carries. Since an annotation processor only sees the
+ * sources being compiled, every jar contributing such types needs to be built
+ * with this processor on its processor path.
+ * <p>
+ * Incremental builds only compile some of the sources, so an existing index in the class output is merged: entries
+ * of types compiled again are replaced, entries of types that no longer exist are dropped.
+ */
+public class TypeIndexProcessor extends AbstractProcessor {
+
+    /**
+     * the location of the index, must be kept in sync with {@code com.vaadin.guice.server.TypeIndex}
+     */
+    static final String INDEX_LOCATION = "META-INF/vaadin-guice/type.index";
+
+    private static final String[] INDEXED_TYPES = {
+            "com.google.inject.Module",
+            "com.vaadin.flow.component.UI",
+            "com.vaadin.flow.server.RequestHandler",
+            "com.vaadin.flow.server.SessionInitListener",
+            "com.vaadin.flow.server.SessionDestroyListener",
+            "com.vaadin.flow.server.ServiceDestroyListener",
+            "com.vaadin.flow.server.VaadinServiceInitListener",
+            "com.vaadin.flow.i18n.I18NProvider"
+    };
+
+    private static final Set<String> INDEXED_ANNOTATIONS = Set.of(
+            "com.vaadin.flow.router.Route"
+    );
+
+    private final SortedMap<String, SortedSet<String>> index = new TreeMap<>();
+
+    /**
+     * binary names of all classes compiled, whether they are indexed or not
+     */
+    private final Set<String> compiledTypes = new HashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        final List<TypeMirror> indexedTypes = resolveIndexedTypes();
+
+        for (Element element : roundEnv.getRootElements()) {
+            collect(element, indexedTypes);
+        }
+
+        return false;
+    }
+
+    private List<TypeMirror> resolveIndexedTypes() {
+        final List<TypeMirror> indexedTypes = new ArrayList<>(INDEXED_TYPES.length);
+
+        for (String indexedType : INDEXED_TYPES) {
+            final TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(indexedType);
+
+            //types that are not on the compile-classpath cannot have subtypes in the compiled sources
+            if (typeElement != null) {
+                indexedTypes.add(processingEnv.getTypeUtils().erasure(typeElement.asType()));
+            }
+        }
+
+        return indexedTypes;
+    }
+
+    private void collect(Element element, List<TypeMirror> indexedTypes) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+
+        final TypeElement typeElement = (TypeElement) element;
+
+        if (typeElement.getKind() == ElementKind.CLASS && !typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            final TypeMirror type = processingEnv.getTypeUtils().erasure(typeElement.asType());
+
+            final String binaryName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+
+            compiledTypes.add(binaryName);
+
+            for (TypeMirror indexedType : indexedTypes) {
+                if (processingEnv.getTypeUtils().isSubtype(type, indexedType)) {
+                    index.computeIfAbsent(binaryName, k -> new TreeSet<>()).add(indexedType.toString());
+                }
+            }
+
+            for (AnnotationMirror annotation : typeElement.getAnnotationMirrors()) {
+                final String annotationName = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+
+                if (INDEXED_ANNOTATIONS.contains(annotationName)) {
+                    index.computeIfAbsent(binaryName, k -> new TreeSet<>()).add(annotationName);
+                }
+            }
+        }
+
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            collect(enclosed, indexedTypes);
+        }
+    }
+
+    private void writeIndex() {
+        final boolean existingIndex = mergeExistingIndex();
+
+        if (index.isEmpty() && !existingIndex) {
+            return;
+        }
+
+        try {
+            final FileObject resource = processingEnv
+                    .getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+
+            try (Writer writer = resource.openWriter(); PrintWriter printWriter = new PrintWriter(writer)) {
+                printWriter.println("# generated by " + getClass().getName() + ", do not edit");
+
+                for (Map.Entry<String, SortedSet<String>> entry : index.entrySet()) {
+                    printWriter.println(entry.getKey() + "=" + String.join(",", entry.getValue()));
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "could not write " + INDEX_LOCATION + ": " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * adds the entries of the index written by a previous build to the index of this build, except for those of types
+     * compiled in this build or no longer existing. Returns false if there is no previous index.
+     */
+    private boolean mergeExistingIndex() {
+        final FileObject existing;
+
+        try {
+            existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+
+        try (Reader reader = existing.openReader(true); BufferedReader bufferedReader = new BufferedReader(reader)) {
+            String line;
+
+            while ((line = bufferedReader.readLine()) != null) {
+                final int separator = line.indexOf('=');
+
+                if (line.startsWith("#") || separator < 0) {
+                    continue;
+                }
+
+                final String binaryName = line.substring(0, separator).trim();
+
+                if (compiledTypes.contains(binaryName) || !exists(binaryName)) {
+                    continue;
+                }
+
+                index.computeIfAbsent(binaryName, k -> new TreeSet<>())
+                        .addAll(Arrays.asList(line.substring(separator + 1).trim().split(",")));
+            }
+
+            return true;
+        } catch (IOException e) {
+            //no index was written before
+            return false;
+        }
+    }
+
+    private boolean exists(String binaryName) {
+        return processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.')) != null;
+    }
+}
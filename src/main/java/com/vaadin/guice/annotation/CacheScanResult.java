@@ -0,0 +1,37 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation enables caching of the classpath scan of a {@link com.vaadin.guice.server.GuiceVaadinServlet}
+ * across restarts. The types found are stored in the given directory together with a fingerprint of the
+ * classpath, consisting of all classpath entries, their sizes and modification times. As long as the
+ * fingerprint matches, the scan is skipped. Alternatively, the directory can be configured with an
+ * initParam named 'scanResultCacheDirectory' in the web.xml.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheScanResult {
+    /**
+     * the directory to store the scan result in, will be created if it does not exist
+     */
+    String value();
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation makes a {@link com.vaadin.guice.server.GuiceVaadinServlet} cache the translations of its
+ * {@link com.vaadin.flow.i18n.I18NProvider} by locale, key and arguments. All translations of the provided locales
+ * are loaded into the cache at startup if the provider supports
+ * {@link com.vaadin.flow.i18n.I18NProvider#getAllTranslations(java.util.Locale)}.
+ * Alternatively, the maximum size can be configured with an initParam named 'translationCacheSize' in the web.xml.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheTranslations {
+    /**
+     * the maximum number of cached translations, the least recently used are evicted first
+     */
+    long maximumSize() default 100_000;
+}
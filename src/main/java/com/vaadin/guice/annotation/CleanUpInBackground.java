@@ -0,0 +1,37 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation makes a {@link com.vaadin.guice.server.GuiceVaadinServlet} release the scoped instances of
+ * destroyed sessions in a background thread. The thread calling sessionDestroy only detaches the instances from the
+ * session and queues them, the background thread releases them in batches. If the queue is full, the calling thread
+ * releases them itself. Alternatively, the size of the queue can be configured with an initParam named
+ * 'cleanUpQueueSize' in the web.xml.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+public @interface CleanUpInBackground {
+    /**
+     * the maximum number of UIs and sessions waiting to be released
+     */
+    int queueSize() default 10_000;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import com.vaadin.guice.server.GuiceVaadinMetrics;
+import com.vaadin.guice.server.JmxMetrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation makes a {@link com.vaadin.guice.server.GuiceVaadinServlet} record the hits and misses of its
+ * scopes, the number of live scoped instances, provision and wait times of scoped keys and the instantiations
+ * per type in the given {@link GuiceVaadinMetrics}, by default in a {@link JmxMetrics} exposed via JMX.
+ * Alternatively, the class can be configured with an initParam named 'metrics' in the web.xml.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+public @interface EnableMetrics {
+    /**
+     * the implementation to record in, it needs a public no-arg constructor
+     */
+    Class<? extends GuiceVaadinMetrics> value() default JmxMetrics.class;
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import com.google.inject.Stage;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation sets the {@link Stage} of the injector of a {@link com.vaadin.guice.server.GuiceVaadinServlet},
+ * the default is {@link Stage#DEVELOPMENT}. In {@link Stage#PRODUCTION}, all singletons are built when the
+ * injector is created, independent singletons are built in parallel. Alternatively, the stage can be configured
+ * with an initParam named 'stage' in the web.xml.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+public @interface InjectorStage {
+    /**
+     * the stage of the injector
+     */
+    Stage value();
+}
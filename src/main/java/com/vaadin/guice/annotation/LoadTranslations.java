@@ -0,0 +1,45 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation makes a {@link com.vaadin.guice.server.GuiceVaadinServlet} load all translations of the given
+ * locales from properties files at startup and bind an {@link com.vaadin.flow.i18n.I18NProvider} translating from
+ * memory, so no I18NProvider needs to be implemented. The files are named like those of Flow's default provider,
+ * 'vaadin-i18n/translations_de.properties' for German. The locales can alternatively be configured with an initParam
+ * named 'translationLocales' in the web.xml, the bundle with an initParam named 'translationBundle'.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+public @interface LoadTranslations {
+
+    String DEFAULT_BUNDLE = "vaadin-i18n/translations";
+
+    /**
+     * the language tags of the locales to load, like 'en' or 'de-AT'
+     */
+    String[] value();
+
+    /**
+     * the path of the properties files without locale and extension
+     */
+    String bundle() default DEFAULT_BUNDLE;
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the paths a {@link com.vaadin.flow.server.RequestHandler} handles, so the
+ * {@link com.vaadin.guice.server.GuiceVaadinServlet} only offers it requests below one of them instead of
+ * every request. Prefixes are matched by whole segments, '/api' matches '/api' and '/api/orders' but not '/apis'.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface PathPrefix {
+    /**
+     * the path prefixes, relative to the servlet like {@link com.vaadin.flow.server.VaadinRequest#getPathInfo()}
+     */
+    String[] value();
+}
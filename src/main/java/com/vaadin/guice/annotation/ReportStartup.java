@@ -0,0 +1,36 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation makes a {@link com.vaadin.guice.server.GuiceVaadinServlet} time the phases of its startup,
+ * like the classpath scan, the creation and configuration of every module and the creation of the injector,
+ * as well as the slowest provisions during startup. The report is logged in one line and written to the given
+ * JSON file. Alternatively, the file can be configured with an initParam named 'startupReport' in the web.xml.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReportStartup {
+    /**
+     * the JSON file to write the report to
+     */
+    String value();
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation makes a {@link com.vaadin.guice.server.GuiceVaadinServlet} close the instances in the
+ * {@link UIScope} and {@link VaadinSessionScope} implementing {@link AutoCloseable} once their UI is detached or their
+ * session is destroyed. Without the annotation, they are not closed. By default, they are closed by one thread
+ * with a timeout of 10 seconds, so closing does not add to the latency of requests. Alternatively, closing can be
+ * enabled with initParams named 'destroyCallbackThreads' and 'destroyCallbackTimeoutMillis' in the web.xml.
+ */
+@Target({java.lang.annotation.ElementType.TYPE})
+@Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+@Documented
+public @interface ScopeDestroyCallbacks {
+    int DEFAULT_THREADS = 1;
+
+    long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * the number of threads closing the instances, 0 for closing them in the thread detaching the UI or destroying
+     * the session
+     */
+    int threads() default DEFAULT_THREADS;
+
+    /**
+     * the time after which closing the instances of one UI or session is interrupted, if there are threads
+     * closing them
+     */
+    long timeoutMillis() default DEFAULT_TIMEOUT_MILLIS;
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Injector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Resolves the bindings of types ahead of their first use, so the first request does not have to pay
+ * for the creation of just-in-time bindings, including the reflection on the constructors and members
+ * of the types and their dependencies. Bindings are only resolved, no instances are created. The types
+ * are handed to the injector from a pool whose workers use the caller's context class loader, but the
+ * injector creates just-in-time bindings one at a time while holding its lock.
+ */
+final class BindingWarmUp {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BindingWarmUp.class);
+
+    private final int types;
+    private final Duration duration;
+    private final Map<Class<?>, RuntimeException> failures;
+
+    private BindingWarmUp(int types, Duration duration, Map<Class<?>, RuntimeException> failures) {
+        this.types = types;
+        this.duration = duration;
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * resolves the bindings of the given types with as many threads as there are processors available
+     * and logs how long it took and which bindings failed
+     */
+    static BindingWarmUp run(Injector injector, Collection<Class<?>> types) {
+        final long start = System.nanoTime();
+
+        final Map<Class<?>, RuntimeException> failures = new ConcurrentHashMap<>();
+
+        final ForkJoinPool pool = ContextClassLoaderWorkers.newPool();
+
+        try {
+            pool.submit(() -> types.parallelStream().forEach(type -> {
+                try {
+                    injector.getBinding(type);
+                } catch (RuntimeException e) {
+                    failures.put(type, e);
+                }
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        final BindingWarmUp warmUp = new BindingWarmUp(types.size(), Duration.ofNanos(System.nanoTime() - start), failures);
+
+        warmUp.log();
+
+        return warmUp;
+    }
+
+    private void log() {
+        LOGGER.info("warmed up the bindings of {} types in {} ms, {} failed", types, duration.toMillis(), failures.size());
+
+        failures.forEach((type, e) -> LOGGER.warn("could not warm up the binding of {}: {}", type.getName(), e.getMessage()));
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * the types whose bindings could not be resolved, with the reason why
+     */
+    Map<Class<?>, RuntimeException> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import com.vaadin.flow.i18n.I18NProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An {@link I18NProvider} caching the translations of another one by locale, key and arguments. Only
+ * translations whose arguments are strings, boxed primitives, big integers, big decimals or enums are
+ * cached, since other arguments may change or not implement equals.
+ */
+final class CachingI18NProvider implements I18NProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingI18NProvider.class);
+    private static final Object[] NO_PARAMS = new Object[0];
+    private static final Set<Class<?>> IMMUTABLE_PARAM_TYPES = Set.of(
+            String.class,
+            Boolean.class,
+            Character.class,
+            Byte.class,
+            Short.class,
+            Integer.class,
+            Long.class,
+            Float.class,
+            Double.class,
+            BigInteger.class,
+            BigDecimal.class
+    );
+
+    private final I18NProvider i18NProvider;
+    private final Cache<Translation, String> translations;
+
+    CachingI18NProvider(I18NProvider i18NProvider, long maximumSize) {
+        checkArgument(maximumSize > 0, "maximumSize must be positive, was %s", maximumSize);
+
+        this.i18NProvider = checkNotNull(i18NProvider);
+        this.translations = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * loads the translations without arguments of all keys of the provided locales into the cache in parallel.
+     * The keys are taken from {@link I18NProvider#getAllTranslations(Locale)}, but the translations are
+     * requested with {@link I18NProvider#getTranslation(String, Locale, Object...)}, since the values returned
+     * by the former are not necessarily formatted. Nothing is loaded for locales the provider does not support
+     * {@link I18NProvider#getAllTranslations(Locale)} for. The provider is called from a pool whose workers use the
+     * caller's context class loader, translations that cannot be loaded are logged and left out.
+     */
+    void warmUp() {
+        final long start = System.nanoTime();
+        final List<Locale> locales = getProvidedLocales();
+
+        final ForkJoinPool pool = ContextClassLoaderWorkers.newPool();
+
+        final long loaded;
+
+        try {
+            loaded = pool.submit(() -> locales
+                    .parallelStream()
+                    .mapToLong(this::warmUp)
+                    .sum()
+            ).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        LOGGER.info(
+                "loaded {} translations of {} locales into the translation cache in {} ms",
+                loaded,
+                locales.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+    }
+
+    private long warmUp(Locale locale) {
+        final Map<String, String> allTranslations;
+
+        try {
+            allTranslations = i18NProvider.getAllTranslations(locale);
+        } catch (UnsupportedOperationException e) {
+            return 0;
+        } catch (RuntimeException e) {
+            LOGGER.warn("could not load the translations of {} into the translation cache", locale, e);
+            return 0;
+        }
+
+        long loaded = 0;
+
+        for (String key : allTranslations.keySet()) {
+            final String translation;
+
+            try {
+                translation = i18NProvider.getTranslation(key, locale);
+            } catch (RuntimeException e) {
+                LOGGER.warn("could not load the translation of {} for {} into the translation cache", key, locale, e);
+                continue;
+            }
+
+            if (translation != null) {
+                translations.put(new Translation(key, locale, NO_PARAMS), translation);
+                loaded++;
+            }
+        }
+
+        return loaded;
+    }
+
+    @Override
+    public List<Locale> getProvidedLocales() {
+        return i18NProvider.getProvidedLocales();
+    }
+
+    @Override
+    public String getTranslation(String key, Locale locale, Object... params) {
+        if (!isCacheable(params)) {
+            return i18NProvider.getTranslation(key, locale, params);
+        }
+
+        final Translation cacheKey = new Translation(key, locale, params != null ? params.clone() : NO_PARAMS);
+
+        String translation = translations.getIfPresent(cacheKey);
+
+        if (translation == null) {
+            translation = i18NProvider.getTranslation(key, locale, params);
+
+            if (translation != null) {
+                translations.put(cacheKey, translation);
+            }
+        }
+
+        return translation;
+    }
+
+    @Override
+    public Map<String, String> getAllTranslations(Locale locale) {
+        return i18NProvider.getAllTranslations(locale);
+    }
+
+    @Override
+    public Map<String, String> getTranslations(Collection<String> keys, Locale locale) {
+        return i18NProvider.getTranslations(keys, locale);
+    }
+
+    private static boolean isCacheable(Object[] params) {
+        if (params == null) {
+            return true;
+        }
+
+        for (Object param : params) {
+            if (param == null || !(IMMUTABLE_PARAM_TYPES.contains(param.getClass()) || param instanceof Enum)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final class Translation {
+        final String key;
+        final Locale locale;
+        final Object[] params;
+        final int hashCode;
+
+        Translation(String key, Locale locale, Object[] params) {
+            this.key = key;
+            this.locale = locale;
+            this.params = params;
+            this.hashCode = 31 * (31 * Objects.hashCode(key) + Objects.hashCode(locale)) + Arrays.hashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Translation)) {
+                return false;
+            }
+
+            final Translation other = (Translation) o;
+
+            return hashCode == other.hashCode
+                    && Objects.equals(key, other.key)
+                    && Objects.equals(locale, other.locale)
+                    && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.annotation.Annotation;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.vfs.Vfs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Scans packages for the types of interest to the {@link GuiceVaadinServlet}.
+ * <p>
+ * All classpath entries containing one of the packages and all class files within these entries
+ * are read in parallel on a {@link ForkJoinPool}. Only the super class and interfaces of every class
+ * file are recorded, which is what the SubTypes-scanner of Reflections does, as well as whether a
+ * concrete class carries one of the {@link ScanResult#ANNOTATIONS}. Every concrete class is then
+ * sorted into all {@link ScanResult#CATEGORIES} in a single pass, instead of querying the subtypes of
+ * every category one after another.
+ */
+final class ClasspathScanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClasspathScanner.class);
+
+    private static final String OBJECT = Object.class.getName();
+
+    private final ClassLoader classLoader;
+    private final String[] packages;
+
+    /**
+     * super class and interfaces of every scanned class
+     */
+    private final Map<String, List<String>> superTypesByType = new ConcurrentHashMap<>();
+
+    private final Set<String> concreteTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * concrete types carrying one of the {@link ScanResult#ANNOTATIONS}
+     */
+    private final Set<String> annotatedTypes = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> annotationNames = ScanResult.ANNOTATIONS
+            .stream()
+            .map(Class::getName)
+            .collect(toSet());
+
+    /**
+     * bit-mask of the {@link ScanResult#CATEGORIES} a type belongs to, by type name
+     */
+    private final Map<String, Integer> categoriesByType = new ConcurrentHashMap<>();
+
+    private ClasspathScanner(ClassLoader classLoader, String[] packages) {
+        this.classLoader = classLoader;
+        this.packages = packages;
+    }
+
+    /**
+     * scans the given packages with as many threads as there are processors available
+     */
+    static ScanResult scan(ClassLoader classLoader, String[] packages) {
+        final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        try {
+            return pool.submit(() -> new ClasspathScanner(classLoader, packages).scan()).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private ScanResult scan() {
+        final Set<URL> urls = new LinkedHashSet<>();
+
+        for (String aPackage : packages) {
+            urls.addAll(ClasspathHelper.forPackage(aPackage, classLoader));
+        }
+
+        urls.parallelStream().forEach(this::scan);
+
+        final ScanResult scanResult = new ScanResult();
+
+        concreteTypes
+                .parallelStream()
+                .filter(type -> annotatedTypes.contains(type) || getCategories(type) != 0)
+                .forEach(type -> {
+                    try {
+                        scanResult.add(Class.forName(type, false, classLoader));
+                    } catch (ClassNotFoundException | LinkageError e) {
+                        LOGGER.warn("could not load {}, ignoring it", type, e);
+                    }
+                });
+
+        return scanResult;
+    }
+
+    private void scan(URL url) {
+        final Vfs.Dir dir;
+
+        try {
+            dir = Vfs.fromURL(url);
+        } catch (RuntimeException e) {
+            LOGGER.warn("could not read {}, ignoring it", url, e);
+            return;
+        }
+
+        try {
+            final List<Vfs.File> classFiles = new ArrayList<>();
+
+            for (Vfs.File file : dir.getFiles()) {
+                if (isInPackages(file.getRelativePath())) {
+                    classFiles.add(file);
+                }
+            }
+
+            classFiles.parallelStream().forEach(this::read);
+        } finally {
+            dir.close();
+        }
+    }
+
+    private boolean isInPackages(String relativePath) {
+        if (!relativePath.endsWith(".class")) {
+            return false;
+        }
+
+        final String typeName = relativePath.substring(0, relativePath.length() - ".class".length()).replace('/', '.');
+
+        return ScanResult.isInPackages(typeName, packages);
+    }
+
+    private void read(Vfs.File file) {
+        final ClassFile classFile;
+
+        try (InputStream inputStream = file.openInputStream()) {
+            classFile = new ClassFile(new DataInputStream(new BufferedInputStream(inputStream)));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("could not read {}, ignoring it", file.getRelativePath(), e);
+            return;
+        }
+
+        final List<String> superTypes = new ArrayList<>();
+
+        if (classFile.getSuperclass() != null) {
+            superTypes.add(classFile.getSuperclass());
+        }
+
+        superTypes.addAll(List.of(classFile.getInterfaces()));
+
+        superTypesByType.put(classFile.getName(), superTypes);
+
+        if (!classFile.isAbstract() && !classFile.isInterface()) {
+            concreteTypes.add(classFile.getName());
+
+            if (isAnnotated(classFile)) {
+                annotatedTypes.add(classFile.getName());
+            }
+        }
+    }
+
+    private boolean isAnnotated(ClassFile classFile) {
+        final AnnotationsAttribute annotations = (AnnotationsAttribute) classFile.getAttribute(AnnotationsAttribute.visibleTag);
+
+        if (annotations == null) {
+            return false;
+        }
+
+        for (Annotation annotation : annotations.getAnnotations()) {
+            if (annotationNames.contains(annotation.getTypeName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * returns the bit-mask of categories the given type belongs to. Scanned types are resolved by
+     * their recorded super types, types outside of the scanned packages are loaded and checked directly.
+     * The computation is idempotent, so concurrent computations of the same type are harmless.
+     */
+    private int getCategories(String type) {
+        final Integer cached = categoriesByType.get(type);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        int categories = 0;
+
+        final List<String> superTypes = superTypesByType.get(type);
+
+        if (superTypes != null) {
+            for (int i = 0; i < ScanResult.CATEGORIES.size(); i++) {
+                if (ScanResult.CATEGORIES.get(i).getName().equals(type)) {
+                    categories |= 1 << i;
+                }
+            }
+
+            for (String superType : superTypes) {
+                categories |= getCategories(superType);
+            }
+        } else if (!OBJECT.equals(type)) {
+            categories = getCategoriesOfUnscannedType(type);
+        }
+
+        categoriesByType.put(type, categories);
+
+        return categories;
+    }
+
+    private int getCategoriesOfUnscannedType(String type) {
+        final Class<?> clazz;
+
+        try {
+            clazz = Class.forName(type, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return 0;
+        }
+
+        int categories = 0;
+
+        for (int i = 0; i < ScanResult.CATEGORIES.size(); i++) {
+            if (ScanResult.CATEGORIES.get(i).isAssignableFrom(clazz)) {
+                categories |= 1 << i;
+            }
+        }
+
+        return categories;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.i18n.I18NProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * An {@link I18NProvider} holding all translations of its locales in memory, loaded from properties files like
+ * those of Flow's {@link com.vaadin.flow.i18n.DefaultI18NProvider} and translating the same way. The files of all
+ * locales are read in parallel when the provider is loaded.
+ * <p>
+ * The keys of all locales are held once, in an open-addressing table that maps them to an index. Every locale has
+ * an array of its translations by that index, which already contains the translations of its parent locales for keys
+ * it does not translate itself, so a lookup hashes the key once and reads two arrays. Equal translations are held as
+ * one string and translations with arguments are held with their parsed {@link MessageFormat}, which is copied for
+ * every translation since MessageFormat is not thread-safe.
+ */
+final class CompactI18NProvider implements I18NProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactI18NProvider.class);
+
+    private final List<Locale> providedLocales;
+
+    /*
+     * open-addressing table of the keys, the index of a key is at the same position in indices
+     */
+    private final String[] keys;
+    private final int[] indices;
+
+    /*
+     * translations by locale and index of their key, either a String or a Pattern
+     */
+    private final Map<Locale, Object[]> translations;
+
+    private CompactI18NProvider(List<Locale> providedLocales, String[] keys, int[] indices, Map<Locale, Object[]> translations) {
+        this.providedLocales = providedLocales;
+        this.keys = keys;
+        this.indices = indices;
+        this.translations = translations;
+    }
+
+    /**
+     * loads the translations of the given locales from the properties files of the given bundle, like
+     * 'vaadin-i18n/translations_de_AT.properties', 'vaadin-i18n/translations_de.properties' and
+     * 'vaadin-i18n/translations.properties' for the bundle 'vaadin-i18n/translations' and the locale de-AT.
+     * The file without a locale holds the translations for all locales and is used for locales that are not provided.
+     */
+    static CompactI18NProvider load(ClassLoader classLoader, String bundle, List<Locale> locales) {
+        checkNotNull(classLoader);
+        checkNotNull(bundle);
+        checkArgument(!locales.isEmpty(), "no locales to load translations for");
+
+        final long start = System.nanoTime();
+
+        final Set<Locale> bundleLocales = new LinkedHashSet<>();
+
+        for (Locale locale : locales) {
+            bundleLocales.addAll(candidates(locale));
+        }
+
+        final Map<Locale, Properties> bundles = bundleLocales
+                .parallelStream()
+                .collect(toMap(locale -> locale, locale -> read(classLoader, bundle, locale)));
+
+        final Set<String> allKeys = new TreeSet<>();
+
+        bundles.values().forEach(properties -> allKeys.addAll(properties.stringPropertyNames()));
+
+        final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+        final ConcurrentMap<Format, Format> formats = new ConcurrentHashMap<>();
+        final String[] sortedKeys = allKeys.stream().map(key -> intern(strings, key)).toArray(String[]::new);
+
+        final Map<Locale, Object[]> translations = new HashMap<>();
+        final Set<Locale> translatedLocales = new LinkedHashSet<>(locales);
+
+        if (!bundles.get(Locale.ROOT).isEmpty()) {
+            translatedLocales.add(Locale.ROOT);
+        }
+
+        translatedLocales
+                .parallelStream()
+                .map(locale -> Map.entry(locale, translate(locale, sortedKeys, bundles, strings, formats)))
+                .collect(toList())
+                .forEach(entry -> translations.put(entry.getKey(), entry.getValue()));
+
+        final int capacity = Integer.highestOneBit(Math.max(1, sortedKeys.length) * 2 - 1) << 1;
+        final String[] keys = new String[capacity];
+        final int[] indices = new int[capacity];
+
+        for (int index = 0; index < sortedKeys.length; index++) {
+            int i = slot(sortedKeys[index], capacity);
+
+            while (keys[i] != null) {
+                i = (i + 1) & (capacity - 1);
+            }
+
+            keys[i] = sortedKeys[index];
+            indices[i] = index;
+        }
+
+        LOGGER.info(
+                "loaded {} keys of {} locales from {} in {} ms",
+                sortedKeys.length,
+                locales.size(),
+                bundle,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+
+        return new CompactI18NProvider(List.copyOf(locales), keys, indices, translations);
+    }
+
+    /*
+     * the locale and its parents, most specific first
+     */
+    private static List<Locale> candidates(Locale locale) {
+        final Set<Locale> candidates = new LinkedHashSet<>();
+
+        candidates.add(locale);
+
+        if (!locale.getCountry().isEmpty() || !locale.getVariant().isEmpty() || !locale.getScript().isEmpty()) {
+            candidates.add(new Locale(locale.getLanguage(), locale.getCountry()));
+            candidates.add(new Locale(locale.getLanguage()));
+        }
+
+        candidates.add(Locale.ROOT);
+
+        return new ArrayList<>(candidates);
+    }
+
+    private static Properties read(ClassLoader classLoader, String bundle, Locale locale) {
+        final String suffix = locale.equals(Locale.ROOT)
+                ? ""
+                : "_" + new Locale(locale.getLanguage(), locale.getCountry(), locale.getVariant());
+        final URL resource = classLoader.getResource(bundle + suffix + ".properties");
+        final Properties properties = new Properties();
+
+        if (resource == null) {
+            return properties;
+        }
+
+        try (InputStream inputStream = resource.openStream()) {
+            properties.load(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not read " + resource, e);
+        }
+
+        return properties;
+    }
+
+    private static Object[] translate(
+            Locale locale,
+            String[] keys,
+            Map<Locale, Properties> bundles,
+            ConcurrentMap<String, String> strings,
+            ConcurrentMap<Format, Format> formats
+    ) {
+        final List<Properties> candidates = candidates(locale).stream().map(bundles::get).collect(toList());
+        final Object[] translations = new Object[keys.length];
+
+        for (int index = 0; index < keys.length; index++) {
+            for (Properties candidate : candidates) {
+                final String translation = candidate.getProperty(keys[index]);
+
+                if (translation != null) {
+                    translations[index] = Pattern.of(intern(strings, translation), locale, formats);
+                    break;
+                }
+            }
+        }
+
+        return translations;
+    }
+
+    private static <T> T intern(ConcurrentMap<T, T> pool, T value) {
+        final T interned = pool.putIfAbsent(value, value);
+
+        return interned != null ? interned : value;
+    }
+
+    private static int slot(String key, int capacity) {
+        final int hash = key.hashCode();
+
+        return (hash ^ (hash >>> 16)) & (capacity - 1);
+    }
+
+    private int indexOf(String key) {
+        for (int i = slot(key, keys.length); ; i = (i + 1) & (keys.length - 1)) {
+            final String candidate = keys[i];
+
+            if (candidate == null) {
+                return -1;
+            }
+
+            if (candidate.equals(key)) {
+                return indices[i];
+            }
+        }
+    }
+
+    private Object[] translationsOf(Locale locale) {
+        for (Locale candidate : candidates(locale)) {
+            final Object[] localeTranslations = translations.get(candidate);
+
+            if (localeTranslations != null) {
+                return localeTranslations;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public List<Locale> getProvidedLocales() {
+        return providedLocales;
+    }
+
+    @Override
+    public String getTranslation(String key, Locale locale, Object... params) {
+        if (key == null) {
+            LOGGER.warn("Got lang request for key with null value!");
+            return "";
+        }
+
+        Object[] localeTranslations = translations.get(locale);
+
+        //the patterns of the translations of a parent locale are parsed for that locale
+        final boolean parentLocale = localeTranslations == null;
+
+        if (parentLocale) {
+            localeTranslations = translationsOf(locale);
+        }
+
+        final int index = indexOf(key);
+        final Object translation = localeTranslations != null && index >= 0 ? localeTranslations[index] : null;
+
+        if (translation == null) {
+            return "!" + locale.getLanguage() + ": " + key;
+        }
+
+        if (translation instanceof Pattern) {
+            return parentLocale ? ((Pattern) translation).format(params, locale) : ((Pattern) translation).format(params);
+        }
+
+        return params != null && params.length > 0
+                ? new MessageFormat((String) translation, locale).format(params)
+                : (String) translation;
+    }
+
+    @Override
+    public Map<String, String> getAllTranslations(Locale locale) {
+        final Object[] localeTranslations = translationsOf(locale);
+        final Map<String, String> allTranslations = new LinkedHashMap<>();
+
+        if (localeTranslations != null) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null && localeTranslations[indices[i]] != null) {
+                    allTranslations.put(keys[i], localeTranslations[indices[i]].toString());
+                }
+            }
+        }
+
+        return allTranslations;
+    }
+
+    /**
+     * a translation with arguments and its parsed format
+     */
+    private static final class Pattern {
+        final String pattern;
+        final MessageFormat format;
+
+        private Pattern(String pattern, MessageFormat format) {
+            this.pattern = pattern;
+            this.format = format;
+        }
+
+        /*
+         * returns the given translation as Pattern if it has arguments and parses as MessageFormat,
+         * otherwise the translation itself. The number, date and choice formats of the arguments take
+         * most of the memory of a MessageFormat, since they are never changed but only copied with it,
+         * equal ones are shared between all patterns.
+         */
+        static Object of(String translation, Locale locale, ConcurrentMap<Format, Format> formats) {
+            if (translation.indexOf('{') < 0) {
+                return translation;
+            }
+
+            final MessageFormat format;
+
+            try {
+                format = new MessageFormat(translation, locale);
+            } catch (IllegalArgumentException e) {
+                return translation;
+            }
+
+            final Format[] argumentFormats = format.getFormats();
+
+            for (int i = 0; i < argumentFormats.length; i++) {
+                if (argumentFormats[i] != null) {
+                    argumentFormats[i] = intern(formats, argumentFormats[i]);
+                }
+            }
+
+            format.setFormats(argumentFormats);
+
+            return new Pattern(translation, format);
+        }
+
+        String format(Object[] params) {
+            return params != null && params.length > 0 ? ((MessageFormat) format.clone()).format(params) : pattern;
+        }
+
+        /*
+         * formats the arguments in a locale other than the one the pattern was parsed for
+         */
+        String format(Object[] params, Locale locale) {
+            return params != null && params.length > 0 ? new MessageFormat(pattern, locale).format(params) : pattern;
+        }
+
+        @Override
+        public String toString() {
+            return pattern;
+        }
+    }
+}
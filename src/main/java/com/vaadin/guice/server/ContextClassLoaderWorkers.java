@@ -0,0 +1,45 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Creates the workers of a {@link ForkJoinPool} with the context class loader of the thread that created
+ * the factory. Workers of a new pool inherit the system class loader otherwise, so modules and types
+ * loaded by a web application's class loader could not find its resources.
+ */
+final class ContextClassLoaderWorkers implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+    private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+    /**
+     * creates a pool with as many workers as there are processors available
+     */
+    static ForkJoinPool newPool() {
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors(), new ContextClassLoaderWorkers(), null, false);
+    }
+
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+        thread.setContextClassLoader(contextClassLoader);
+
+        return thread;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Closes the scoped instances implementing {@link AutoCloseable} when their UI is detached or their session is
+ * destroyed, so resources like cursors or subscriptions held by them are not kept until they are garbage collected.
+ * The instances of a UI or session are closed in the reverse order of their slots by one task on a pool of daemon
+ * threads, so closing does not add to the latency of the request detaching the UI or destroying the session.
+ * <p>
+ * A task still running after the timeout is interrupted. Instances failing to close are logged and recorded with
+ * {@link GuiceVaadinMetrics.ScopeMetrics#closeFailed(Class)}, tasks running into the timeout with
+ * {@link GuiceVaadinMetrics.ScopeMetrics#closeTimedOut()}.
+ */
+final class DestroyCallbacks {
+
+    /**
+     * releases the instances without closing them, closing them has to be enabled with
+     * {@link com.vaadin.guice.annotation.ScopeDestroyCallbacks}
+     */
+    static final DestroyCallbacks NONE = new DestroyCallbacks(false, null, null, 0);
+
+    /**
+     * closes the instances in the thread releasing them, without a timeout
+     */
+    static final DestroyCallbacks DIRECT = new DestroyCallbacks(true, null, null, 0);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DestroyCallbacks.class);
+
+    private final boolean closing;
+    private final ListeningExecutorService executorService;
+    private final ScheduledExecutorService timeouts;
+    private final long timeoutMillis;
+
+    private DestroyCallbacks(boolean closing, ListeningExecutorService executorService, ScheduledExecutorService timeouts, long timeoutMillis) {
+        this.closing = closing;
+        this.executorService = executorService;
+        this.timeouts = timeouts;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * creates the callbacks for the given number of threads, 0 for closing in the thread releasing the instances
+     */
+    static DestroyCallbacks create(int threads, long timeoutMillis) {
+        checkArgument(threads >= 0, "threads must not be negative, was %s", threads);
+        checkArgument(timeoutMillis > 0, "timeoutMillis must be positive, was %s", timeoutMillis);
+
+        if (threads == 0) {
+            return DIRECT;
+        }
+
+        final ListeningExecutorService executorService = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(
+                threads,
+                new ThreadFactoryBuilder().setNameFormat("guice-vaadin-destroy-%d").setDaemon(true).build()
+        ));
+
+        final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("guice-vaadin-destroy-timeout").setDaemon(true).build()
+        );
+
+        return new DestroyCallbacks(true, executorService, timeouts, timeoutMillis);
+    }
+
+    /**
+     * releases the given instances and closes those implementing {@link AutoCloseable}, unless closing is disabled
+     */
+    void release(ScopedInstances instances) {
+        final List<AutoCloseable> closeables = instances.release();
+
+        if (!closing || closeables.isEmpty()) {
+            return;
+        }
+
+        final GuiceVaadinMetrics.ScopeMetrics metrics = instances.getMetrics();
+
+        if (executorService == null) {
+            close(closeables, metrics);
+            return;
+        }
+
+        final ListenableFuture<?> submitted;
+
+        try {
+            submitted = executorService.submit(() -> close(closeables, metrics));
+        } catch (RejectedExecutionException e) {
+            //released after close(), like UIs detached while the servlet is destroyed
+            close(closeables, metrics);
+            return;
+        }
+
+        final ListenableFuture<?> closed = Futures.withTimeout(submitted, timeoutMillis, TimeUnit.MILLISECONDS, timeouts);
+
+        Futures.addCallback(closed, new FutureCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (t instanceof TimeoutException) {
+                    metrics.closeTimedOut();
+                    LOGGER.warn("closing {} scoped instances took longer than {} ms", closeables.size(), timeoutMillis);
+                } else {
+                    LOGGER.warn("could not close scoped instances", t);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * waits up to the timeout for the instances already released to be closed and stops the threads, instances
+     * released afterwards are closed in the thread releasing them
+     */
+    void close() {
+        if (executorService == null) {
+            return;
+        }
+
+        executorService.shutdown();
+
+        try {
+            if (!executorService.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            timeouts.shutdownNow();
+        }
+    }
+
+    private static void close(List<AutoCloseable> closeables, GuiceVaadinMetrics.ScopeMetrics metrics) {
+        for (AutoCloseable closeable : closeables) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            try {
+                closeable.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                metrics.closeFailed(closeable.getClass());
+                LOGGER.warn("could not close {}", closeable, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Binding;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Scope;
+import com.google.inject.Scopes;
+import com.google.inject.Singleton;
+import com.google.inject.Stage;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.ProviderBinding;
+import com.google.inject.spi.ProviderKeyBinding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Builds the eager singletons of an injector in parallel. Guice builds them one after another at the very
+ * end of the injector's creation, but injects the members of objects passed to
+ * {@link com.google.inject.Binder#requestInjection(Object)} right before, when all bindings are complete.
+ * This is where the singletons are built here, so Guice only finds the existing instances afterwards.
+ * <p>
+ * A singleton is only built once all eager singletons it depends on, directly or through other bindings,
+ * are built, so independent singletons are built concurrently. Dependencies that are not known statically,
+ * like those looked up through providers, are still safe, since every singleton is built only once.
+ * Failures are left to Guice, which reports them when it builds the singleton itself.
+ */
+final class EagerSingletons {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EagerSingletons.class);
+
+    private EagerSingletons() {
+    }
+
+    /**
+     * returns a module that makes the injector build its eager singletons in parallel
+     */
+    static Module parallel() {
+        return binder -> binder.requestInjection(new EagerSingletons());
+    }
+
+    @Inject
+    void build(Injector injector, Stage stage) {
+        final Set<Key<?>> eagerSingletons = new HashSet<>();
+
+        for (Binding<?> binding : injector.getAllBindings().values()) {
+            //instances that are bound need not be built
+            if (!(binding instanceof InstanceBinding) && isEagerSingleton(binding, stage)) {
+                eagerSingletons.add(binding.getKey());
+            }
+        }
+
+        if (eagerSingletons.size() < 2) {
+            return;
+        }
+
+        final Map<Key<?>, Set<Key<?>>> dependencies = new HashMap<>();
+
+        for (Key<?> key : eagerSingletons) {
+            dependencies.put(key, getEagerSingletonDependencies(injector, key, eagerSingletons));
+        }
+
+        //eager singletons tend to block on I/O, like connection pools, so there may be more threads than processors
+        final ExecutorService executorService = Executors.newFixedThreadPool(
+                Math.min(eagerSingletons.size(), 4 * Runtime.getRuntime().availableProcessors()),
+                new BuildThreadFactory()
+        );
+
+        try {
+            final Map<Key<?>, CompletableFuture<Void>> builds = new HashMap<>();
+
+            for (Key<?> key : eagerSingletons) {
+                schedule(injector, key, dependencies, builds, new HashSet<>(), executorService);
+            }
+
+            CompletableFuture.allOf(builds.values().toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static CompletableFuture<Void> schedule(
+            Injector injector,
+            Key<?> key,
+            Map<Key<?>, Set<Key<?>>> dependencies,
+            Map<Key<?>, CompletableFuture<Void>> builds,
+            Set<Key<?>> scheduling,
+            ExecutorService executorService
+    ) {
+        final CompletableFuture<Void> scheduled = builds.get(key);
+
+        if (scheduled != null) {
+            return scheduled;
+        }
+
+        //a cycle, Guice resolves it when building the singletons of the cycle in one thread
+        if (!scheduling.add(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final List<CompletableFuture<Void>> dependencyBuilds = dependencies
+                .get(key)
+                .stream()
+                .map(dependency -> schedule(injector, dependency, dependencies, builds, scheduling, executorService))
+                .collect(toList());
+
+        final CompletableFuture<Void> build = CompletableFuture
+                .allOf(dependencyBuilds.toArray(new CompletableFuture<?>[0]))
+                .thenRunAsync(() -> build(injector, key), executorService);
+
+        builds.put(key, build);
+
+        return build;
+    }
+
+    private static void build(Injector injector, Key<?> key) {
+        try {
+            injector.getInstance(key);
+        } catch (RuntimeException e) {
+            LOGGER.debug("could not build {} in parallel, leaving it to the injector", key, e);
+        }
+    }
+
+    private static boolean isEagerSingleton(Binding<?> binding, Stage stage) {
+        return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+            @Override
+            public Boolean visitEagerSingleton() {
+                return true;
+            }
+
+            @Override
+            public Boolean visitScope(Scope scope) {
+                return stage == Stage.PRODUCTION && scope == Scopes.SINGLETON;
+            }
+
+            @Override
+            public Boolean visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+                return stage == Stage.PRODUCTION
+                        && (scopeAnnotation == Singleton.class || scopeAnnotation == jakarta.inject.Singleton.class);
+            }
+
+            @Override
+            protected Boolean visitOther() {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * returns the eager singletons the given key depends on, following the dependencies of all bindings that
+     * are not eager singletons themselves
+     */
+    private static Set<Key<?>> getEagerSingletonDependencies(Injector injector, Key<?> key, Set<Key<?>> eagerSingletons) {
+        final Set<Key<?>> eagerSingletonDependencies = new HashSet<>();
+        final Set<Key<?>> visited = new HashSet<>();
+        final List<Key<?>> pending = new ArrayList<>(getDependencies(injector.getBinding(key)));
+
+        while (!pending.isEmpty()) {
+            final Key<?> dependency = pending.remove(pending.size() - 1);
+
+            if (dependency.equals(key) || !visited.add(dependency)) {
+                continue;
+            }
+
+            if (eagerSingletons.contains(dependency)) {
+                eagerSingletonDependencies.add(dependency);
+                continue;
+            }
+
+            final Binding<?> binding = injector.getExistingBinding(dependency);
+
+            if (binding != null) {
+                pending.addAll(getDependencies(binding));
+            }
+        }
+
+        return eagerSingletonDependencies;
+    }
+
+    private static Collection<Key<?>> getDependencies(Binding<?> binding) {
+        if (binding instanceof LinkedKeyBinding) {
+            return List.of(((LinkedKeyBinding<?>) binding).getLinkedKey());
+        }
+
+        if (binding instanceof ProviderKeyBinding) {
+            return List.of(((ProviderKeyBinding<?>) binding).getProviderKey());
+        }
+
+        //injecting a provider does not build what it provides
+        if (binding instanceof ProviderBinding || !(binding instanceof HasDependencies)) {
+            return List.of();
+        }
+
+        return ((HasDependencies) binding)
+                .getDependencies()
+                .stream()
+                .map(Dependency::getKey)
+                .collect(toList());
+    }
+
+    private static final class BuildThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "vaadin-guice-eager-singletons-" + count.incrementAndGet());
+
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+
+            return thread;
+        }
+    }
+}
@@ -1 +1 @@
-/* * Copyright 2000-2017 Vaadin Ltd. * * Licensed under the Apache License, Version 2.0 (the "License"); you may not * use this file except in compliance with the License. You may obtain a copy of * the License at * * http://www.apache.org/licenses/LICENSE-2.0 * * Unless required by applicable law or agreed to in writing, software * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the * License for the specific language governing permissions and limitations under * the License. */package com.vaadin.guice.server;import com.google.inject.Key;import com.vaadin.flow.di.DefaultInstantiator;import com.vaadin.flow.i18n.I18NProvider;import com.vaadin.flow.server.VaadinServiceInitListener;import java.util.stream.Stream;/** * The default Guice instantiator. * * @author Vaadin Ltd */class GuiceInstantiator extends DefaultInstantiator {    private final GuiceVaadinServlet servlet;    private final Key<I18NProvider> i18NProviderKey = Key.get(I18NProvider.class);    /**     * Creates a new guice instantiator instance.     *     * @param service the service to use     */    GuiceInstantiator(GuiceVaadinServletService service) {        super(service);        servlet = (GuiceVaadinServlet) service.getServlet();    }    @Override    public <T> T getOrCreate(Class<T> type) {        return servlet.getInjector().getInstance(type);    }    @Override    public Stream<VaadinServiceInitListener> getServiceInitListeners() {        return Stream.concat(super.getServiceInitListeners(), servlet.getServiceInitListeners());    }    private Boolean i18NProviderBound;        private boolean isI18NProviderBound(){        if(i18NProviderBound == null){           i18NProviderBound = servlet.getInjector().getExistingBinding(i18NProviderKey) != null;        }                return i18NProviderBound;    }        @Override    public I18NProvider getI18NProvider() {        return isI18NProviderBound() ? getOrCreate(I18NProvider.class) : null;    }}
\ No newline at end of file
+/* * Copyright 2000-2017 Vaadin Ltd. * * Licensed under the Apache License, Version 2.0 (the "License"); you may not * use this file except in compliance with the License. You may obtain a copy of * the License at * * http://www.apache.org/licenses/LICENSE-2.0 * * Unless required by applicable law or agreed to in writing, software * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the * License for the specific language governing permissions and limitations under * the License. */package com.vaadin.guice.server;import com.google.inject.Binding;import com.google.inject.Key;import com.google.inject.Provider;import com.google.inject.Scopes;import com.vaadin.flow.di.DefaultInstantiator;import com.vaadin.flow.i18n.I18NProvider;import com.vaadin.flow.server.VaadinServiceInitListener;import java.util.Map;import java.util.concurrent.ConcurrentHashMap;import java.util.function.Supplier;import java.util.stream.Stream;/** * The default Guice instantiator. * * @author Vaadin Ltd */class GuiceInstantiator extends DefaultInstantiator {    private final GuiceVaadinServlet servlet;    private final Key<I18NProvider> i18NProviderKey = Key.get(I18NProvider.class);    /*     * the injector looks up the binding on every getInstance and takes its global lock for     * just-in-time bindings, the providers it resolves to do not change once the injector is built     */    private final Map<Class<?>, Instantiation<?>> instantiations = new ConcurrentHashMap<>();    /*     * Flow asks for the I18NProvider on every translation, a singleton is looked up once, a scoped one     * on every call     */    private volatile Supplier<I18NProvider> i18NProvider;    /**     * Creates a new guice instantiator instance.     *     * @param service the service to use     */    GuiceInstantiator(GuiceVaadinServletService service) {        super(service);        servlet = (GuiceVaadinServlet) service.getServlet();    }    @Override    @SuppressWarnings("unchecked")    public <T> T getOrCreate(Class<T> type) {        Instantiation<T> instantiation = (Instantiation<T>) instantiations.get(type);        if (instantiation == null) {            instantiation = (Instantiation<T>) instantiations.computeIfAbsent(type, t -> new Instantiation<>(                    servlet.getInjector().getProvider(t),                    servlet.getMetrics().forInstantiatedType(t)            ));        }        instantiation.metrics.instantiated();        final InstantiationEvent event = new InstantiationEvent();        event.begin();        final T instance = instantiation.provider.get();        event.end();        if (event.shouldCommit()) {            event.type = type;            event.commit();        }        return instance;    }    @Override    public Stream<VaadinServiceInitListener> getServiceInitListeners() {        return Stream.concat(super.getServiceInitListeners(), servlet.getServiceInitListeners());    }    @Override    public I18NProvider getI18NProvider() {        Supplier<I18NProvider> supplier = i18NProvider;        if (supplier == null) {            i18NProvider = supplier = resolveI18NProvider();        }        return supplier.get();    }    private Supplier<I18NProvider> resolveI18NProvider() {        final Binding<I18NProvider> binding = servlet.getInjector().getExistingBinding(i18NProviderKey);        if (binding == null) {            return () -> null;        }        if (!Scopes.isSingleton(binding)) {            return () -> getOrCreate(I18NProvider.class);        }        final I18NProvider singleton = getOrCreate(I18NProvider.class);        return () -> singleton;    }    private static final class Instantiation<T> {        final Provider<T> provider;        final GuiceVaadinMetrics.TypeMetrics metrics;        Instantiation(Provider<T> provider, GuiceVaadinMetrics.TypeMetrics metrics) {            this.provider = provider;            this.metrics = metrics;        }    }}
\ No newline at end of file
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+
+/**
+ * An SPI for recording what happens in the Guice layer of a {@link GuiceVaadinServlet}, configured with
+ * {@link com.vaadin.guice.annotation.EnableMetrics} or an initParam named 'metrics'. The recorders for a
+ * scope, a scoped key and an instantiated type are asked for once, when the scope, the key or the type
+ * is first seen, so recording itself does not need to look anything up. Recorders are called
+ * concurrently and on the hot path of every request, so they must neither block nor allocate.
+ * <p>
+ * Implementations need a public no-arg constructor. {@link JmxMetrics} is the default one.
+ */
+public interface GuiceVaadinMetrics {
+
+    /**
+     * returns the recorder of the scope with the given name, 'UIScope' or 'VaadinSessionScope'
+     */
+    ScopeMetrics forScope(String scope);
+
+    /**
+     * returns the recorder for the instances of the given type created by the {@link com.vaadin.flow.di.Instantiator}
+     */
+    TypeMetrics forInstantiatedType(Class<?> type);
+
+    /**
+     * called when the servlet with the given name is initialized, before any recorder is asked for
+     */
+    default void start(String servletName) {
+    }
+
+    /**
+     * called when the servlet is destroyed
+     */
+    default void stop() {
+    }
+
+    /**
+     * called after the background clean-up released a batch of UIs and sessions, see
+     * {@link com.vaadin.guice.annotation.CleanUpInBackground}
+     *
+     * @param released the number of UIs and sessions released in the batch
+     * @param queued   the number of UIs and sessions still waiting to be released
+     */
+    default void cleanedUp(int released, int queued) {
+    }
+
+    /**
+     * records a scope, whose instances are held per UI or session
+     */
+    interface ScopeMetrics {
+        /**
+         * returns the recorder of the given key in this scope
+         */
+        KeyMetrics forKey(Key<?> key);
+
+        /**
+         * called when the first instance of a UI or session is created
+         */
+        void opened();
+
+        /**
+         * called when the instances of a UI or session are released
+         *
+         * @param instances the number of instances that were held
+         */
+        void closed(int instances);
+
+        /**
+         * called when an {@link AutoCloseable} instance of the given type threw while being closed
+         */
+        default void closeFailed(Class<?> type) {
+        }
+
+        /**
+         * called when closing the instances of a UI or session took longer than the timeout
+         */
+        default void closeTimedOut() {
+        }
+    }
+
+    /**
+     * records a key in a scope
+     */
+    interface KeyMetrics {
+        /**
+         * called when an existing instance was returned
+         */
+        void hit();
+
+        /**
+         * called when an instance was created
+         *
+         * @param nanos the time the provision took
+         */
+        void created(long nanos);
+
+        /**
+         * called when a thread waited for another thread creating the instance
+         *
+         * @param nanos the time waited
+         */
+        void waited(long nanos);
+    }
+
+    /**
+     * records a type created by the {@link com.vaadin.flow.di.Instantiator}
+     */
+    interface TypeMetrics {
+        /**
+         * called for every call of {@link com.vaadin.flow.di.Instantiator#getOrCreate(Class)} for the type
+         */
+        void instantiated();
+    }
+}
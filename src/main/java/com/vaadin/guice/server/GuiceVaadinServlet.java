@@ -15,14 +15,16 @@
  */
 package com.vaadin.guice.server;
 
-import com.google.common.collect.Iterables;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.Provider;
+import com.google.inject.Scopes;
+import com.google.inject.Stage;
 
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.i18n.I18NProvider;
+import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.RequestHandler;
 import com.vaadin.flow.server.ServiceDestroyListener;
 import com.vaadin.flow.server.ServiceException;
@@ -33,37 +35,53 @@ import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinServiceInitListener;
 import com.vaadin.flow.server.VaadinServlet;
 import com.vaadin.flow.server.VaadinServletService;
-import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.guice.annotation.CacheTranslations;
+import com.vaadin.guice.annotation.CleanUpInBackground;
 import com.vaadin.guice.annotation.Import;
-import com.vaadin.guice.annotation.OverrideBindings;
+import com.vaadin.guice.annotation.InjectorStage;
+import com.vaadin.guice.annotation.LoadTranslations;
 import com.vaadin.guice.annotation.PackagesToScan;
+import com.vaadin.guice.annotation.ReportStartup;
+import com.vaadin.guice.annotation.ScopeDestroyCallbacks;
+import com.vaadin.guice.annotation.ScopedExecutorThreads;
+import com.vaadin.guice.annotation.ShareRequestHandlers;
+import com.vaadin.guice.annotation.UseTypeIndex;
+import com.vaadin.guice.annotation.EnableMetrics;
+import com.vaadin.guice.annotation.CacheScanResult;
+import com.vaadin.guice.annotation.WarmUpBindings;
 
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletException;
 import org.reflections.Reflections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.base.Suppliers.memoize;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.inject.Guice.createInjector;
-import static com.google.inject.util.Modules.override;
-import static java.lang.reflect.Modifier.isAbstract;
 import static java.util.Arrays.stream;
+import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Subclass of the standard {@link com.vaadin.flow.server.VaadinServlet Vaadin servlet}
@@ -73,6 +91,8 @@ import static java.util.stream.Collectors.toSet;
 @SuppressWarnings("unused")
 public class GuiceVaadinServlet extends VaadinServlet {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(GuiceVaadinServlet.class);
+
     private final UIScope uiScope = new UIScope();
     private final VaadinSessionScope vaadinSessionScope = new VaadinSessionScope();
     private Injector injector;
@@ -83,79 +103,88 @@ public class GuiceVaadinServlet extends VaadinServlet {
     private final Set<Class<? extends RequestHandler>> requestHandlerClasses = new HashSet<>();
     private final Set<Class<? extends VaadinServiceInitListener>> vaadinServiceInitListenerClasses = new HashSet<>();
     private Class<? extends I18NProvider> i18NProviderClass;
+    private long translationCacheSize;
+    private CompactI18NProvider compactI18NProvider;
+    private StartupReport startupReport = StartupReport.DISABLED;
+    private GuiceVaadinMetrics metrics = NoMetrics.INSTANCE;
+    private ScopedExecutorService scopedExecutorService;
+    private DestroyCallbacks destroyCallbacks = DestroyCallbacks.NONE;
+    private ScopeCleanUp scopeCleanUp = ScopeCleanUp.INLINE;
+    private RequestHandlerRegistration requestHandlerRegistration = RequestHandlerRegistration.NONE;
 
     @Override
     public void init(ServletConfig servletConfig) throws ServletException {
-        final String initParameter = servletConfig.getInitParameter("packagesToScan");
-
-        final String[] packagesToScan;
-
-        final boolean annotationPresent = getClass().isAnnotationPresent(PackagesToScan.class);
-
-        if (!isNullOrEmpty(initParameter)) {
-            checkState(
-                    !annotationPresent,
-                    "%s has both @PackagesToScan-annotation and an 'packagesToScan'-initParam",
-                    getClass()
-            );
-            packagesToScan = initParameter.split(",");
-        } else if (annotationPresent) {
-            packagesToScan = getClass().getAnnotation(PackagesToScan.class).value();
-        } else {
-            throw new IllegalStateException("no packagesToScan-initParameter found and no @PackagesToScan-annotation present, please configure the packages to be scanned");
-        }
+        startupReport = getStartupReportFile(servletConfig).map(StartupReport::to).orElse(StartupReport.DISABLED);
+
+        final String[] packagesToScan = resolveConfig(
+                servletConfig,
+                PackagesToScan.class,
+                "packagesToScan",
+                value -> value.split(","),
+                PackagesToScan::value,
+                null
+        );
 
-        Reflections reflections = new Reflections((Object[]) packagesToScan);
+        checkState(
+                packagesToScan != null,
+                "no packagesToScan-initParameter found and no @PackagesToScan-annotation present, please configure the packages to be scanned"
+        );
 
-        final Set<Annotation> importAnnotations = stream(getClass().getAnnotations())
+        final List<Annotation> importAnnotations = stream(getClass().getAnnotations())
                 .filter(annotation -> annotation.annotationType().isAnnotationPresent(Import.class))
-                .collect(toSet());
+                .collect(toList());
 
-        //import packages
-        importAnnotations
+        final String[] importedPackages = importAnnotations
                 .stream()
                 .map(annotation -> annotation.annotationType().getAnnotation(Import.class))
-                .filter(i -> i.packagesToScan().length != 0)
-                .forEach(i -> reflections.merge(new Reflections((Object[]) i.packagesToScan())));
-
-        //import modules
-        final Set<Module> modulesFromAnnotations = importAnnotations
-                .stream()
-                .map(annotation -> createModule(annotation.annotationType().getAnnotation(Import.class).value(), reflections, annotation))
-                .collect(toSet());
-
-        final Set<Module> modulesFromPath = filterTypes(reflections.getSubTypesOf(Module.class))
-                .stream()
-                .filter(moduleClass -> !VaadinModule.class.equals(moduleClass))
-                .map(moduleClass -> createModule(moduleClass, reflections, null))
-                .collect(toSet());
-
-        List<Module> nonOverrideModules = new ArrayList<>();
-        List<Module> overrideModules = new ArrayList<>();
-
-        for (Module module : Iterables.concat(modulesFromAnnotations, modulesFromPath)) {
-            if (module.getClass().isAnnotationPresent(OverrideBindings.class)) {
-                overrideModules.add(module);
-            } else {
-                nonOverrideModules.add(module);
-            }
-        }
+                .flatMap(i -> stream(i.packagesToScan()))
+                .toArray(String[]::new);
+
+        final String[] allPackages = Stream
+                .concat(stream(packagesToScan), stream(importedPackages))
+                .map(String::trim)
+                .toArray(String[]::new);
+
+        final ScanResult scanResult = startupReport.time("scan", () -> scan(servletConfig, allPackages));
+
+        //the servlet itself only needs the subtypes, modules asking for a Reflections-instance get a full scan on demand
+        final Supplier<Reflections> reflections = memoize(() -> new Reflections((Object[]) allPackages));
+
+        final Stage stage = getStage(servletConfig);
+
+        //import modules, modules from the path are sorted by name so their bindings are recorded in a stable order
+        final List<Supplier<? extends Module>> moduleFactories = Stream.<Supplier<? extends Module>>concat(
+                importAnnotations
+                        .stream()
+                        .map(annotation -> () -> startupReport.time(
+                                "import " + annotation.annotationType().getName(),
+                                () -> createModule(annotation.annotationType().getAnnotation(Import.class).value(), reflections, annotation)
+                        )),
+                scanResult.getSubTypesOf(Module.class)
+                        .stream()
+                        .filter(moduleClass -> !VaadinModule.class.equals(moduleClass))
+                        .sorted(comparing(Class::getName))
+                        .map(moduleClass -> () -> startupReport.time(
+                                "create " + moduleClass.getName(),
+                                () -> createModule(moduleClass, reflections, null)
+                        ))
+        ).collect(toList());
 
         /*
          * combine bindings from the static modules in {@link GuiceVaadinServletConfiguration#modules()} with those bindings
          * from dynamically loaded modules, see {@link RuntimeModule}.
          * This is done first so modules can install their own reflections.
         */
-        Module combinedModules = override(nonOverrideModules).with(overrideModules);
+        final Module combinedModules = RecordedModules.combine(stage, moduleFactories, startupReport);
 
-        this.uiClasses.addAll(filterTypes(reflections.getSubTypesOf(UI.class)));
-        this.vaadinServiceInitListenerClasses.addAll(filterTypes(reflections.getSubTypesOf(VaadinServiceInitListener.class)));
-        this.requestHandlerClasses.addAll(filterTypes(reflections.getSubTypesOf(RequestHandler.class)));
-        this.sessionInitListenerClasses.addAll(filterTypes(reflections.getSubTypesOf(SessionInitListener.class)));
-        this.sessionDestroyListenerClasses.addAll(filterTypes(reflections.getSubTypesOf(SessionDestroyListener.class)));
-        this.serviceDestroyListeners.addAll(filterTypes(reflections.getSubTypesOf(ServiceDestroyListener.class)));
+        this.uiClasses.addAll(scanResult.getSubTypesOf(UI.class));
+        this.vaadinServiceInitListenerClasses.addAll(scanResult.getSubTypesOf(VaadinServiceInitListener.class));
+        this.requestHandlerClasses.addAll(scanResult.getSubTypesOf(RequestHandler.class));
+        this.sessionInitListenerClasses.addAll(scanResult.getSubTypesOf(SessionInitListener.class));
+        this.sessionDestroyListenerClasses.addAll(scanResult.getSubTypesOf(SessionDestroyListener.class));
+        this.serviceDestroyListeners.addAll(scanResult.getSubTypesOf(ServiceDestroyListener.class));
 
-        Set<Class<? extends I18NProvider>> i18NProviders = filterTypes(reflections.getSubTypesOf(I18NProvider.class));
+        Set<Class<? extends I18NProvider>> i18NProviders = scanResult.getSubTypesOf(I18NProvider.class);
 
         checkState(
             i18NProviders.size() < 2,
@@ -167,20 +196,336 @@ public class GuiceVaadinServlet extends VaadinServlet {
             this.i18NProviderClass = getOnlyElement(i18NProviders);
         }
 
-        this.injector = createInjector(new VaadinModule(this), combinedModules);
+        translationCacheSize = getTranslationCacheSize(servletConfig);
+        compactI18NProvider = startupReport.time("loadTranslations", () -> loadTranslations(servletConfig));
+
+        metrics = createMetrics(servletConfig);
+        metrics.start(servletConfig.getServletName());
+        uiScope.setMetrics(metrics);
+        vaadinSessionScope.setMetrics(metrics);
+
+        destroyCallbacks = createDestroyCallbacks(servletConfig);
+        scopeCleanUp = ScopeCleanUp.background(getCleanUpQueueSize(servletConfig), metrics, destroyCallbacks);
+        uiScope.setCleanUp(scopeCleanUp);
+        vaadinSessionScope.setCleanUp(scopeCleanUp);
+
+        scopedExecutorService = createScopedExecutorService(servletConfig);
+
+        final List<Module> modules = new ArrayList<>(List.of(new VaadinModule(this), combinedModules));
+
+        if (stage == Stage.PRODUCTION) {
+            modules.add(EagerSingletons.parallel());
+        }
+
+        if (startupReport.isEnabled()) {
+            modules.add(startupReport.provisionTimer());
+        }
+
+        this.injector = startupReport.time("createInjector", () -> createInjector(stage, modules));
+
+        final boolean shareRequestHandlers = isRequestHandlerSharingEnabled(servletConfig);
+
+        requestHandlerRegistration = startupReport.time(
+                "requestHandlers",
+                () -> RequestHandlerRegistration.of(injector, requestHandlerClasses, shareRequestHandlers)
+        );
+
+        if ((i18NProviderClass != null || compactI18NProvider != null) && translationCacheSize > 0) {
+            //a scoped I18NProvider cannot be provided outside its scope
+            if (Scopes.isSingleton(injector.getBinding(I18NProvider.class))) {
+                final I18NProvider i18NProvider = injector.getInstance(I18NProvider.class);
+
+                //a module may override the binding of the I18NProvider
+                if (i18NProvider instanceof CachingI18NProvider) {
+                    startupReport.time("warmUpTranslations", ((CachingI18NProvider) i18NProvider)::warmUp);
+                }
+            }
+        }
+
+        if (isBindingWarmUpEnabled(servletConfig)) {
+            final Set<Class<?>> warmUpTypes = new HashSet<>(uiClasses);
+
+            warmUpTypes.addAll(scanResult.getTypesAnnotatedWith(Route.class));
+
+            startupReport.time("warmUpBindings", () -> BindingWarmUp.run(injector, warmUpTypes));
+        }
 
         super.init(servletConfig);
+
+        startupReport.finish();
+        startupReport = StartupReport.DISABLED;
     }
 
-    private <U> Set<Class<? extends U>> filterTypes(Set<Class<? extends U>> types) {
-        return types
-                .stream()
-                .filter(t -> !isAbstract(t.getModifiers()))
-                .collect(toSet());
+    private ScanResult scan(ServletConfig servletConfig, String[] packages) {
+        if (!isTypeIndexEnabled(servletConfig)) {
+            return scanClasspath(servletConfig, packages);
+        }
+
+        final Optional<ScanResult> indexedTypes = ScanEvent.record(
+                "type index",
+                packages,
+                () -> TypeIndex.load(getClassLoader(), packages)
+        );
+
+        if (!indexedTypes.isPresent()) {
+            LOGGER.warn("{} uses the type index, but there is no {} on the classpath, scanning the classpath instead", getClass(), TypeIndex.LOCATION);
+            return scanClasspath(servletConfig, packages);
+        }
+
+        //a package no indexed type belongs to may come from a jar that was not built with the index-processor
+        final String[] packagesNotIndexed = stream(packages)
+                .filter(aPackage -> indexedTypes.get()
+                        .getTypes()
+                        .stream()
+                        .noneMatch(type -> ScanResult.isInPackages(type.getName(), new String[]{aPackage})))
+                .toArray(String[]::new);
+
+        if (packagesNotIndexed.length > 0) {
+            LOGGER.info("the type index has no types in {}, scanning the classpath for them", String.join(", ", packagesNotIndexed));
+            indexedTypes.get().addAll(scanClasspath(servletConfig, packagesNotIndexed));
+        }
+
+        return indexedTypes.get();
+    }
+
+    private ScanResult scanClasspath(ServletConfig servletConfig, String[] packages) {
+        final Supplier<ScanResult> classpathScan = () -> ScanEvent.record(
+                "classpath",
+                packages,
+                () -> ClasspathScanner.scan(getClassLoader(), packages)
+        );
+
+        final Optional<Path> scanResultCacheDirectory = getScanResultCacheDirectory(servletConfig);
+
+        if (scanResultCacheDirectory.isPresent()) {
+            return ScanEvent.record(
+                    "scan result cache",
+                    packages,
+                    () -> new ScanResultCache(scanResultCacheDirectory.get()).get(getClassLoader(), packages, classpathScan)
+            );
+        }
+
+        return classpathScan.get();
+    }
+
+    private Optional<Path> getScanResultCacheDirectory(ServletConfig servletConfig) {
+        return resolveConfig(
+                servletConfig,
+                CacheScanResult.class,
+                "scanResultCacheDirectory",
+                value -> Optional.of(Path.of(value)),
+                annotation -> Optional.of(Path.of(annotation.value())),
+                Optional.empty()
+        );
+    }
+
+    private boolean isTypeIndexEnabled(ServletConfig servletConfig) {
+        return resolveConfig(servletConfig, UseTypeIndex.class, "useTypeIndex", Boolean::parseBoolean, annotation -> true, false);
+    }
+
+    private Stage getStage(ServletConfig servletConfig) {
+        return resolveConfig(
+                servletConfig,
+                InjectorStage.class,
+                "stage",
+                value -> Stage.valueOf(value.toUpperCase(Locale.ROOT)),
+                InjectorStage::value,
+                Stage.DEVELOPMENT
+        );
+    }
+
+    private Optional<Path> getStartupReportFile(ServletConfig servletConfig) {
+        return resolveConfig(
+                servletConfig,
+                ReportStartup.class,
+                "startupReport",
+                value -> Optional.of(Path.of(value)),
+                annotation -> Optional.of(Path.of(annotation.value())),
+                Optional.empty()
+        );
+    }
+
+    private boolean isBindingWarmUpEnabled(ServletConfig servletConfig) {
+        return resolveConfig(servletConfig, WarmUpBindings.class, "warmUpBindings", Boolean::parseBoolean, annotation -> true, false);
+    }
+
+    private boolean isRequestHandlerSharingEnabled(ServletConfig servletConfig) {
+        return resolveConfig(servletConfig, ShareRequestHandlers.class, "shareRequestHandlers", Boolean::parseBoolean, annotation -> true, false);
+    }
+
+    private ScopedExecutorService createScopedExecutorService(ServletConfig servletConfig) {
+        final Integer threads = resolveConfig(
+                servletConfig,
+                ScopedExecutorThreads.class,
+                "scopedExecutorThreads",
+                Integer::valueOf,
+                ScopedExecutorThreads::value,
+                null
+        );
+
+        return threads != null ? ScopedExecutorService.create(threads, uiScope, vaadinSessionScope) : null;
+    }
+
+    private DestroyCallbacks createDestroyCallbacks(ServletConfig servletConfig) {
+        final boolean closing = getClass().isAnnotationPresent(ScopeDestroyCallbacks.class)
+                || !isNullOrEmpty(servletConfig.getInitParameter("destroyCallbackThreads"))
+                || !isNullOrEmpty(servletConfig.getInitParameter("destroyCallbackTimeoutMillis"));
+
+        if (!closing) {
+            return DestroyCallbacks.NONE;
+        }
+
+        return DestroyCallbacks.create(
+                resolveConfig(
+                        servletConfig,
+                        ScopeDestroyCallbacks.class,
+                        "destroyCallbackThreads",
+                        Integer::parseInt,
+                        ScopeDestroyCallbacks::threads,
+                        ScopeDestroyCallbacks.DEFAULT_THREADS
+                ),
+                resolveConfig(
+                        servletConfig,
+                        ScopeDestroyCallbacks.class,
+                        "destroyCallbackTimeoutMillis",
+                        Long::parseLong,
+                        ScopeDestroyCallbacks::timeoutMillis,
+                        ScopeDestroyCallbacks.DEFAULT_TIMEOUT_MILLIS
+                )
+        );
+    }
+
+    private int getCleanUpQueueSize(ServletConfig servletConfig) {
+        return resolveConfig(servletConfig, CleanUpInBackground.class, "cleanUpQueueSize", Integer::parseInt, CleanUpInBackground::queueSize, 0);
+    }
+
+    private long getTranslationCacheSize(ServletConfig servletConfig) {
+        return resolveConfig(servletConfig, CacheTranslations.class, "translationCacheSize", Long::parseLong, CacheTranslations::maximumSize, 0L);
+    }
+
+    private CompactI18NProvider loadTranslations(ServletConfig servletConfig) {
+        final String[] locales = resolveConfig(
+                servletConfig,
+                LoadTranslations.class,
+                "translationLocales",
+                value -> value.split(","),
+                LoadTranslations::value,
+                null
+        );
+
+        if (locales == null) {
+            return null;
+        }
+
+        final String bundle = resolveConfig(
+                servletConfig,
+                LoadTranslations.class,
+                "translationBundle",
+                value -> value,
+                LoadTranslations::bundle,
+                LoadTranslations.DEFAULT_BUNDLE
+        );
+
+        checkState(
+                i18NProviderClass == null,
+                "%s loads translations, but %s was found in the packagesToScan",
+                getClass(),
+                i18NProviderClass
+        );
+
+        return CompactI18NProvider.load(
+                getClassLoader(),
+                bundle,
+                stream(locales).map(String::trim).map(Locale::forLanguageTag).collect(toList())
+        );
+    }
+
+    private GuiceVaadinMetrics createMetrics(ServletConfig servletConfig) {
+        final Class<?> metricsClass = resolveConfig(
+                servletConfig,
+                EnableMetrics.class,
+                "metrics",
+                this::loadMetricsClass,
+                EnableMetrics::value,
+                null
+        );
+
+        if (metricsClass == null) {
+            return NoMetrics.INSTANCE;
+        }
+
+        try {
+            return (GuiceVaadinMetrics) metricsClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("could not create " + metricsClass, e);
+        }
+    }
+
+    private Class<?> loadMetricsClass(String className) {
+        final Class<?> metricsClass;
+
+        try {
+            metricsClass = Class.forName(className, true, getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("metrics-class " + className + " not found", e);
+        }
+
+        checkState(
+                GuiceVaadinMetrics.class.isAssignableFrom(metricsClass),
+                "%s does not implement %s",
+                metricsClass,
+                GuiceVaadinMetrics.class
+        );
+
+        return metricsClass;
+    }
+
+    /**
+     * resolves a setting that is configured either by an annotation on the servlet or by an init-parameter,
+     * configuring it by both is an error
+     *
+     * @param parser          parses the trimmed init-parameter
+     * @param annotationValue reads the setting from the annotation
+     * @param defaultValue    the value if neither the annotation nor the init-parameter is present
+     */
+    private <A extends Annotation, T> T resolveConfig(
+            ServletConfig servletConfig,
+            Class<A> annotationType,
+            String paramName,
+            Function<String, T> parser,
+            Function<A, T> annotationValue,
+            T defaultValue
+    ) {
+        final String initParameter = servletConfig.getInitParameter(paramName);
+
+        final A annotation = getClass().getAnnotation(annotationType);
+
+        if (!isNullOrEmpty(initParameter)) {
+            checkState(
+                    annotation == null,
+                    "%s has both @%s-annotation and an '%s'-initParam",
+                    getClass(),
+                    annotationType.getSimpleName(),
+                    paramName
+            );
+            return parser.apply(initParameter.trim());
+        }
+
+        return annotation != null ? annotationValue.apply(annotation) : defaultValue;
+    }
+
+    private ClassLoader getClassLoader() {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        return contextClassLoader != null ? contextClassLoader : getClass().getClassLoader();
     }
 
     @Override
     protected void servletInitialized() {
+        startupReport.time("servletInitialized", this::addListeners);
+    }
+
+    private void addListeners() {
         final VaadinService vaadinService = VaadinService.getCurrent();
 
         vaadinService.addSessionInitListener(this::sessionInit);
@@ -212,13 +557,31 @@ public class GuiceVaadinServlet extends VaadinServlet {
         return guiceVaadinServletService;
     }
 
-    private void sessionInit(SessionInitEvent event) {
-        VaadinSession session = event.getSession();
+    void sessionInit(SessionInitEvent event) {
+        requestHandlerRegistration.sessionInit(event.getSession());
+    }
 
-        requestHandlerClasses
-                .stream()
-                .map(getInjector()::getInstance)
-                .forEach(session::addRequestHandler);
+    @Override
+    public void destroy() {
+        super.destroy();
+        scopeCleanUp.close();
+        destroyCallbacks.close();
+        metrics.stop();
+
+        if (scopedExecutorService != null) {
+            scopedExecutorService.shutdownNow();
+        }
+    }
+
+    GuiceVaadinMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * returns the executor propagating scoped instances, if the servlet is configured to create one
+     */
+    Optional<ScopedExecutorService> getScopedExecutorService() {
+        return Optional.ofNullable(scopedExecutorService);
     }
 
     UIScope getUiScope() {
@@ -234,16 +597,33 @@ public class GuiceVaadinServlet extends VaadinServlet {
     }
 
     Stream<VaadinServiceInitListener> getServiceInitListeners() {
-        return vaadinServiceInitListenerClasses
-                .stream()
-                .map(key -> getInjector().getInstance(key));
+        return Stream.concat(
+                vaadinServiceInitListenerClasses
+                        .stream()
+                        .map(key -> getInjector().getInstance(key)),
+                Stream.of(requestHandlerRegistration)
+        );
     }
 
     Optional<Class<? extends I18NProvider>> getI18NProvider(){
         return Optional.ofNullable(i18NProviderClass);
     }
 
-    private Module createModule(Class<? extends Module> moduleClass, Reflections reflections, Annotation annotation) {
+    /**
+     * returns the translations loaded at startup, if the servlet is configured to load them
+     */
+    Optional<CompactI18NProvider> getCompactI18NProvider() {
+        return Optional.ofNullable(compactI18NProvider);
+    }
+
+    /**
+     * returns the maximum number of cached translations, 0 if translations are not cached
+     */
+    long getTranslationCacheSize() {
+        return translationCacheSize;
+    }
+
+    private Module createModule(Class<? extends Module> moduleClass, Supplier<Reflections> reflections, Annotation annotation) {
 
         for (Constructor<?> constructor : moduleClass.getDeclaredConstructors()) {
 
@@ -257,7 +637,7 @@ public class GuiceVaadinServlet extends VaadinServlet {
                 Class<?> parameterType = parameterTypes[i];
 
                 if (Reflections.class.equals(parameterType)) {
-                    initArgs[i] = reflections;
+                    initArgs[i] = reflections.get();
                 } else if (
                     Provider.class.isAssignableFrom(parameterType) &&
                     ((ParameterizedType) parameterType.getGenericSuperclass()).getActualTypeArguments()[0].equals(Injector.class)
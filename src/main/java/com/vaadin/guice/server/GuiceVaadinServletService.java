@@ -17,7 +17,9 @@ package com.vaadin.guice.server;
 
 import com.vaadin.flow.di.Instantiator;
 import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinServletService;
+import com.vaadin.flow.server.VaadinSession;
 
 import java.util.Optional;
 
@@ -38,4 +40,9 @@ class GuiceVaadinServletService extends VaadinServletService {
     protected Optional<Instantiator> loadInstantiators () {
         return Optional.of(new GuiceInstantiator(this));
     }
+
+    @Override
+    protected VaadinSession createVaadinSession(VaadinRequest request) {
+        return new GuiceVaadinSession(this);
+    }
 }
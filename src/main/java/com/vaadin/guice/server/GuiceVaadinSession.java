@@ -0,0 +1,52 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * The {@link VaadinSession} created by the {@link GuiceVaadinServletService}. It holds the instances of
+ * its own {@link VaadinSessionScope} and of the {@link UIScope} of its UIs, so there is no structure
+ * shared between sessions. Session attributes are not used for this, since they cannot be accessed
+ * without holding the session lock.
+ */
+class GuiceVaadinSession extends VaadinSession {
+
+    private static final AtomicReferenceFieldUpdater<GuiceVaadinSession, SessionScopeStorage> SCOPE_STORAGE =
+            AtomicReferenceFieldUpdater.newUpdater(GuiceVaadinSession.class, SessionScopeStorage.class, "scopeStorage");
+
+    /*
+     * created lazily, since transient fields are not restored when a session is deserialized
+     */
+    private transient volatile SessionScopeStorage scopeStorage;
+
+    GuiceVaadinSession(VaadinService service) {
+        super(service);
+    }
+
+    SessionScopeStorage getScopeStorage() {
+        SessionScopeStorage storage;
+
+        while ((storage = scopeStorage) == null) {
+            SCOPE_STORAGE.compareAndSet(this, null, new SessionScopeStorage());
+        }
+
+        return storage;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in fixed buckets of powers of two nanoseconds, from below a microsecond to
+ * above a quarter of an hour. Recording does not allocate, percentiles are approximated by the upper
+ * bound of the bucket they fall into.
+ */
+final class Histogram {
+
+    private static final int SMALLEST_BUCKET_SHIFT = 10;
+    private static final int BUCKETS = 32;
+
+    private static final int COUNT = BUCKETS;
+    private static final int SUM = BUCKETS + 1;
+    private static final int MAX = BUCKETS + 2;
+
+    /*
+     * the buckets followed by count, sum and maximum, in one array to keep the histogram small
+     */
+    private final AtomicLongArray values = new AtomicLongArray(BUCKETS + 3);
+
+    void record(long nanos) {
+        final int bucket = Math.min(
+                Math.max(Long.SIZE - Long.numberOfLeadingZeros(nanos) - SMALLEST_BUCKET_SHIFT, 0),
+                BUCKETS - 1
+        );
+
+        values.incrementAndGet(bucket);
+        values.addAndGet(SUM, nanos);
+        values.accumulateAndGet(MAX, nanos, Math::max);
+        values.incrementAndGet(COUNT);
+    }
+
+    HistogramSnapshot snapshot() {
+        final long count = values.get(COUNT);
+        final long max = values.get(MAX);
+
+        return new HistogramSnapshot(
+                count,
+                count > 0 ? values.get(SUM) / count : 0,
+                percentile(0.5, count, max),
+                percentile(0.9, count, max),
+                percentile(0.99, count, max),
+                max
+        );
+    }
+
+    private long percentile(double percentile, long count, long max) {
+        final long rank = (long) Math.ceil(percentile * count);
+
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += values.get(bucket);
+
+            if (seen >= rank && seen > 0) {
+                return Math.min(1L << (bucket + SMALLEST_BUCKET_SHIFT), max);
+            }
+        }
+
+        return max;
+    }
+}
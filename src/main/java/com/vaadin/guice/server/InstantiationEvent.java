@@ -0,0 +1,38 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A JFR event for a call of {@link GuiceInstantiator#getOrCreate(Class)}, only recorded if it takes longer
+ * than the threshold, which is 1 ms unless configured otherwise in the recording.
+ */
+@Name("com.vaadin.guice.Instantiation")
+@Label("Instantiation")
+@Category({"Vaadin", "Guice"})
+@Description("A slow instantiation of a route target, component or listener by the GuiceInstantiator")
+@Threshold("1 ms")
+class InstantiationEvent extends Event {
+
+    @Label("Type")
+    Class<?> type;
+}
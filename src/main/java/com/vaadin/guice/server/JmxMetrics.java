@@ -0,0 +1,247 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The default {@link GuiceVaadinMetrics}, which keeps counters and histograms in memory and exposes them
+ * as an MXBean named 'com.vaadin.guice:type=Metrics,servlet=&lt;servlet-name&gt;'. Counters are
+ * {@link LongAdder}s, so threads counting the same key do not contend.
+ */
+public class JmxMetrics implements GuiceVaadinMetrics, JmxMetricsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JmxMetrics.class);
+
+    private final Map<String, ScopeRecorder> scopes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, TypeRecorder> types = new ConcurrentHashMap<>();
+    private final LongAdder cleanedUp = new LongAdder();
+    private volatile int cleanUpQueueDepth;
+    private volatile ObjectName objectName;
+
+    @Override
+    public ScopeMetrics forScope(String scope) {
+        return scopes.computeIfAbsent(scope, s -> new ScopeRecorder());
+    }
+
+    @Override
+    public TypeMetrics forInstantiatedType(Class<?> type) {
+        return types.computeIfAbsent(type, t -> new TypeRecorder());
+    }
+
+    @Override
+    public void start(String servletName) {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            final ObjectName objectName = new ObjectName("com.vaadin.guice:type=Metrics,servlet=" + ObjectName.quote(servletName));
+
+            mBeanServer.registerMBean(this, objectName);
+
+            this.objectName = objectName;
+        } catch (JMException e) {
+            LOGGER.warn("could not register the metrics of {}", servletName, e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        final ObjectName objectName = this.objectName;
+
+        if (objectName == null) {
+            return;
+        }
+
+        this.objectName = null;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOGGER.warn("could not unregister {}", objectName, e);
+        }
+    }
+
+    @Override
+    public void cleanedUp(int released, int queued) {
+        cleanedUp.add(released);
+        cleanUpQueueDepth = queued;
+    }
+
+    @Override
+    public Map<String, Long> getScopeHits() {
+        return byKey(key -> key.hits.sum());
+    }
+
+    @Override
+    public Map<String, Long> getScopeMisses() {
+        return byKey(key -> key.misses.sum());
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getProvisionNanos() {
+        return byKey(key -> key.provisions.snapshot());
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getScopeWaitNanos() {
+        return byKey(key -> key.waits.snapshot());
+    }
+
+    @Override
+    public Map<String, Long> getLiveScopes() {
+        final Map<String, Long> liveScopes = new TreeMap<>();
+
+        scopes.forEach((name, scope) -> liveScopes.put(name, scope.opened.sum() - scope.closed.sum()));
+
+        return liveScopes;
+    }
+
+    @Override
+    public Map<String, Long> getLiveScopedInstances() {
+        final Map<String, Long> liveInstances = new TreeMap<>();
+
+        scopes.forEach((name, scope) -> liveInstances.put(
+                name,
+                scope.keys.values().stream().mapToLong(key -> key.misses.sum()).sum() - scope.released.sum()
+        ));
+
+        return liveInstances;
+    }
+
+    @Override
+    public Map<String, Long> getInstantiations() {
+        final Map<String, Long> instantiations = new TreeMap<>();
+
+        types.forEach((type, metrics) -> instantiations.put(type.getName(), metrics.calls.sum()));
+
+        return instantiations;
+    }
+
+    @Override
+    public Map<String, Long> getCloseFailures() {
+        final Map<String, Long> closeFailures = new TreeMap<>();
+
+        scopes.forEach((name, scope) -> scope.closeFailures.forEach((type, failures) -> closeFailures.put(name + " " + type.getName(), failures.sum())));
+
+        return closeFailures;
+    }
+
+    @Override
+    public Map<String, Long> getCloseTimeouts() {
+        final Map<String, Long> closeTimeouts = new TreeMap<>();
+
+        scopes.forEach((name, scope) -> closeTimeouts.put(name, scope.closeTimeouts.sum()));
+
+        return closeTimeouts;
+    }
+
+    @Override
+    public long getCleanedUp() {
+        return cleanedUp.sum();
+    }
+
+    @Override
+    public int getCleanUpQueueDepth() {
+        return cleanUpQueueDepth;
+    }
+
+    private <V> Map<String, V> byKey(Function<KeyRecorder, V> value) {
+        final Map<String, V> values = new TreeMap<>();
+
+        scopes.forEach((name, scope) -> scope.keys.forEach((key, metrics) -> values.put(name + " " + key, value.apply(metrics))));
+
+        return values;
+    }
+
+    private static final class ScopeRecorder implements ScopeMetrics {
+        final Map<Key<?>, KeyRecorder> keys = new ConcurrentHashMap<>();
+        final LongAdder opened = new LongAdder();
+        final LongAdder closed = new LongAdder();
+        final LongAdder released = new LongAdder();
+        final Map<Class<?>, LongAdder> closeFailures = new ConcurrentHashMap<>();
+        final LongAdder closeTimeouts = new LongAdder();
+
+        @Override
+        public KeyMetrics forKey(Key<?> key) {
+            return keys.computeIfAbsent(key, k -> new KeyRecorder());
+        }
+
+        @Override
+        public void opened() {
+            opened.increment();
+        }
+
+        @Override
+        public void closed(int instances) {
+            closed.increment();
+            released.add(instances);
+        }
+
+        @Override
+        public void closeFailed(Class<?> type) {
+            closeFailures.computeIfAbsent(type, t -> new LongAdder()).increment();
+        }
+
+        @Override
+        public void closeTimedOut() {
+            closeTimeouts.increment();
+        }
+    }
+
+    private static final class KeyRecorder implements KeyMetrics {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final Histogram provisions = new Histogram();
+        final Histogram waits = new Histogram();
+
+        @Override
+        public void hit() {
+            hits.increment();
+        }
+
+        @Override
+        public void created(long nanos) {
+            misses.increment();
+            provisions.record(nanos);
+        }
+
+        @Override
+        public void waited(long nanos) {
+            waits.record(nanos);
+        }
+    }
+
+    private static final class TypeRecorder implements TypeMetrics {
+        final LongAdder calls = new LongAdder();
+
+        @Override
+        public void instantiated() {
+            calls.increment();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import java.util.Map;
+
+/**
+ * The attributes {@link JmxMetrics} exposes under 'com.vaadin.guice:type=Metrics,servlet=&lt;servlet-name&gt;'.
+ * Scoped keys are named '&lt;scope&gt; &lt;key&gt;', durations are in nanoseconds.
+ */
+public interface JmxMetricsMXBean {
+
+    /**
+     * the number of existing instances returned per scoped key
+     */
+    Map<String, Long> getScopeHits();
+
+    /**
+     * the number of instances created per scoped key
+     */
+    Map<String, Long> getScopeMisses();
+
+    /**
+     * the time the provisions took per scoped key
+     */
+    Map<String, HistogramSnapshot> getProvisionNanos();
+
+    /**
+     * the time threads waited for another thread creating an instance per scoped key
+     */
+    Map<String, HistogramSnapshot> getScopeWaitNanos();
+
+    /**
+     * the number of UIs or sessions currently holding instances per scope
+     */
+    Map<String, Long> getLiveScopes();
+
+    /**
+     * the number of instances currently held per scope, divided by {@link #getLiveScopes()} this is the
+     * number of instances per UI or session
+     */
+    Map<String, Long> getLiveScopedInstances();
+
+    /**
+     * the number of calls of {@link com.vaadin.flow.di.Instantiator#getOrCreate(Class)} per type
+     */
+    Map<String, Long> getInstantiations();
+
+    /**
+     * the number of scoped instances per scope and type that threw when they were closed
+     */
+    Map<String, Long> getCloseFailures();
+
+    /**
+     * the number of UIs or sessions per scope whose instances were not closed within the timeout
+     */
+    Map<String, Long> getCloseTimeouts();
+
+    /**
+     * the number of UIs and sessions released by the background clean-up
+     */
+    long getCleanedUp();
+
+    /**
+     * the number of UIs and sessions waiting for the background clean-up after its last batch
+     */
+    int getCleanUpQueueDepth();
+}
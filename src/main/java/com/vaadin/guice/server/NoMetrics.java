@@ -0,0 +1,64 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+
+/**
+ * records nothing, used when no metrics are configured. It is all recorders at once
+ */
+enum NoMetrics implements GuiceVaadinMetrics, GuiceVaadinMetrics.ScopeMetrics, GuiceVaadinMetrics.KeyMetrics, GuiceVaadinMetrics.TypeMetrics {
+    INSTANCE;
+
+    @Override
+    public ScopeMetrics forScope(String scope) {
+        return this;
+    }
+
+    @Override
+    public TypeMetrics forInstantiatedType(Class<?> type) {
+        return this;
+    }
+
+    @Override
+    public KeyMetrics forKey(Key<?> key) {
+        return this;
+    }
+
+    @Override
+    public void opened() {
+    }
+
+    @Override
+    public void closed(int instances) {
+    }
+
+    @Override
+    public void hit() {
+    }
+
+    @Override
+    public void created(long nanos) {
+    }
+
+    @Override
+    public void waited(long nanos) {
+    }
+
+    @Override
+    public void instantiated() {
+    }
+}
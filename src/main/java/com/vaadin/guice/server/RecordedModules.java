@@ -0,0 +1,91 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Module;
+import com.google.inject.Stage;
+import com.google.inject.spi.Elements;
+import com.vaadin.guice.annotation.OverrideBindings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static com.google.inject.util.Modules.override;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Creates modules and records their bindings in parallel. Every module is instantiated and configured
+ * on a {@link ForkJoinPool} whose workers use the caller's context class loader, the recorded elements
+ * are replayed in the order the modules were given in when the injector is created, so the result is
+ * the same as configuring the modules one after another. Modules annotated with {@link OverrideBindings}
+ * override the bindings of all others.
+ */
+final class RecordedModules {
+
+    private RecordedModules() {
+    }
+
+    /**
+     * creates and records the given modules with as many threads as there are processors available and
+     * returns a module replaying their bindings
+     *
+     * @param stage         the stage of the injector the module will be used for, see {@link com.google.inject.Binder#currentStage()}
+     * @param startupReport the report to time the configuration of every module and the combination in
+     */
+    static Module combine(Stage stage, List<Supplier<? extends Module>> moduleFactories, StartupReport startupReport) {
+        final ForkJoinPool pool = ContextClassLoaderWorkers.newPool();
+
+        final List<Recording> recordings;
+
+        try {
+            recordings = pool.submit(() -> moduleFactories
+                    .parallelStream()
+                    .map(moduleFactory -> new Recording(stage, moduleFactory.get(), startupReport))
+                    .collect(toList())
+            ).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        final List<Module> nonOverrideModules = new ArrayList<>();
+        final List<Module> overrideModules = new ArrayList<>();
+
+        for (Recording recording : recordings) {
+            if (recording.override) {
+                overrideModules.add(recording.module);
+            } else {
+                nonOverrideModules.add(recording.module);
+            }
+        }
+
+        return startupReport.time("override modules", () -> override(nonOverrideModules).with(overrideModules));
+    }
+
+    private static final class Recording {
+        final boolean override;
+        final Module module;
+
+        Recording(Stage stage, Module module, StartupReport startupReport) {
+            this.override = module.getClass().isAnnotationPresent(OverrideBindings.class);
+            this.module = Elements.getModule(startupReport.time(
+                    "configure " + module.getClass().getName(),
+                    () -> Elements.getElements(stage, module)
+            ));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.guice.annotation.PathPrefix;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Arrays.stream;
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Request handlers indexed by the first segment of the path prefixes they declare with {@link PathPrefix}, so a
+ * request is only offered to the handlers whose prefix matches its path instead of to all handlers in turn.
+ * Longer prefixes are tried first, handlers without a prefix are offered every request after the matching ones.
+ * The index is built once from the handler types, {@link #dispatcher(RequestHandler[])} creates the request handler
+ * dispatching to instances of them.
+ */
+final class RequestHandlerIndex implements Serializable {
+
+    private static final Prefix[] NO_PREFIXES = new Prefix[0];
+
+    private final int size;
+    private final Map<String, Prefix[]> prefixesBySegment;
+    private final int[] unprefixed;
+
+    private RequestHandlerIndex(int size, Map<String, Prefix[]> prefixesBySegment, int[] unprefixed) {
+        this.size = size;
+        this.prefixesBySegment = prefixesBySegment;
+        this.unprefixed = unprefixed;
+    }
+
+    /**
+     * indexes the given handler types, the dispatcher expects instances of them in the same order
+     */
+    static RequestHandlerIndex of(List<Class<? extends RequestHandler>> types) {
+        final Map<String, List<Prefix>> prefixesBySegment = new HashMap<>();
+        final List<Integer> unprefixed = new ArrayList<>();
+
+        for (int handler = 0; handler < types.size(); handler++) {
+            final PathPrefix pathPrefix = types.get(handler).getAnnotation(PathPrefix.class);
+
+            final List<String> paths = pathPrefix != null
+                    ? stream(pathPrefix.value()).map(RequestHandlerIndex::normalize).distinct().collect(toList())
+                    : List.of();
+
+            //the root prefix matches every path
+            if (paths.isEmpty() || paths.contains("")) {
+                unprefixed.add(handler);
+                continue;
+            }
+
+            for (String path : paths) {
+                //a handler is offered a request once, so prefixes below another of its prefixes are left out
+                if (paths.stream().noneMatch(other -> !other.equals(path) && isBelow(path, other))) {
+                    prefixesBySegment.computeIfAbsent(firstSegment(path), segment -> new ArrayList<>()).add(new Prefix(path, handler));
+                }
+            }
+        }
+
+        final Map<String, Prefix[]> index = new HashMap<>();
+
+        prefixesBySegment.forEach((segment, prefixes) -> {
+            prefixes.sort(comparingInt((Prefix prefix) -> prefix.path.length()).reversed());
+            index.put(segment, prefixes.toArray(NO_PREFIXES));
+        });
+
+        return new RequestHandlerIndex(types.size(), index, unprefixed.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * returns a request handler dispatching to the given handlers, which are instances of the indexed types
+     */
+    RequestHandler dispatcher(RequestHandler[] handlers) {
+        checkArgument(handlers.length == size, "expected %s request handlers, got %s", size, handlers.length);
+
+        return new Dispatcher(this, handlers);
+    }
+
+    /*
+     * '/api/orders/' -> '/api/orders', '/' -> ''
+     */
+    private static String normalize(String path) {
+        String normalized = path.trim();
+
+        if (!normalized.startsWith("/")) {
+            normalized = "/" + normalized;
+        }
+
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+
+        return normalized;
+    }
+
+    /*
+     * '/api/orders' -> 'api'
+     */
+    private static String firstSegment(String path) {
+        final int end = path.indexOf('/', 1);
+
+        return end < 0 ? path.substring(1) : path.substring(1, end);
+    }
+
+    /*
+     * '/api/orders' and '/api' are below '/api', '/apis' is not
+     */
+    private static boolean isBelow(String path, String prefix) {
+        return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+    }
+
+    private static final class Prefix implements Serializable {
+        final String path;
+        final int handler;
+
+        Prefix(String path, int handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+
+        boolean matches(String requestPath) {
+            return isBelow(requestPath, path);
+        }
+    }
+
+    private static final class Dispatcher implements RequestHandler {
+        private final RequestHandlerIndex index;
+        private final RequestHandler[] handlers;
+
+        Dispatcher(RequestHandlerIndex index, RequestHandler[] handlers) {
+            this.index = index;
+            this.handlers = handlers;
+        }
+
+        @Override
+        public boolean handleRequest(VaadinSession session, VaadinRequest request, VaadinResponse response) throws IOException {
+            final String path = request.getPathInfo();
+
+            if (path != null && path.startsWith("/")) {
+                final Prefix[] prefixes = index.prefixesBySegment.get(firstSegment(path));
+
+                if (prefixes != null) {
+                    for (Prefix prefix : prefixes) {
+                        if (prefix.matches(path) && handlers[prefix.handler].handleRequest(session, request, response)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+
+            for (int handler : index.unprefixed) {
+                if (handlers[handler].handleRequest(session, request, response)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
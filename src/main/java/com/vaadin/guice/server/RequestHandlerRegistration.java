@@ -0,0 +1,122 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.Scopes;
+
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.guice.annotation.PathPrefix;
+import com.vaadin.guice.annotation.SharedRequestHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Registers the request handlers found in the packagesToScan. Handlers are added to every new session by default,
+ * through the providers resolved once when the servlet is initialized. If sharing is enabled, handlers that are
+ * singletons or annotated with {@link SharedRequestHandler} are created once and registered with the service instead.
+ * Handlers declaring a {@link PathPrefix} are dispatched to through a {@link RequestHandlerIndex}, one for the shared
+ * handlers and one per session for the others.
+ */
+final class RequestHandlerRegistration implements VaadinServiceInitListener {
+
+    static final RequestHandlerRegistration NONE = new RequestHandlerRegistration(null, List.of(), null, List.of());
+
+    private final RequestHandler sharedRequestHandler;
+    private final List<Provider<? extends RequestHandler>> sessionRequestHandlers;
+    private final RequestHandlerIndex sessionRequestHandlerIndex;
+    private final List<Provider<? extends RequestHandler>> indexedSessionRequestHandlers;
+
+    private RequestHandlerRegistration(
+            RequestHandler sharedRequestHandler,
+            List<Provider<? extends RequestHandler>> sessionRequestHandlers,
+            RequestHandlerIndex sessionRequestHandlerIndex,
+            List<Provider<? extends RequestHandler>> indexedSessionRequestHandlers
+    ) {
+        this.sharedRequestHandler = sharedRequestHandler;
+        this.sessionRequestHandlers = sessionRequestHandlers;
+        this.sessionRequestHandlerIndex = sessionRequestHandlerIndex;
+        this.indexedSessionRequestHandlers = indexedSessionRequestHandlers;
+    }
+
+    static RequestHandlerRegistration of(Injector injector, Collection<Class<? extends RequestHandler>> types, boolean share) {
+        final List<Class<? extends RequestHandler>> shared = new ArrayList<>();
+        final List<Class<? extends RequestHandler>> perSession = new ArrayList<>();
+        final List<Class<? extends RequestHandler>> indexedPerSession = new ArrayList<>();
+
+        //sorted by name, so handlers are offered requests in a stable order
+        for (Class<? extends RequestHandler> type : types.stream().sorted(comparing(Class::getName)).collect(toList())) {
+            if (share && (type.isAnnotationPresent(SharedRequestHandler.class) || Scopes.isSingleton(injector.getBinding(type)))) {
+                shared.add(type);
+            } else if (type.isAnnotationPresent(PathPrefix.class)) {
+                indexedPerSession.add(type);
+            } else {
+                perSession.add(type);
+            }
+        }
+
+        return new RequestHandlerRegistration(
+                shared.isEmpty()
+                        ? null
+                        : RequestHandlerIndex.of(shared).dispatcher(shared.stream().map(injector::getInstance).toArray(RequestHandler[]::new)),
+                providers(injector, perSession),
+                indexedPerSession.isEmpty() ? null : RequestHandlerIndex.of(indexedPerSession),
+                providers(injector, indexedPerSession)
+        );
+    }
+
+    private static List<Provider<? extends RequestHandler>> providers(Injector injector, List<Class<? extends RequestHandler>> types) {
+        return types.stream().<Provider<? extends RequestHandler>>map(injector::getProvider).collect(toList());
+    }
+
+    /**
+     * registers the shared request handlers with the service
+     */
+    @Override
+    public void serviceInit(ServiceInitEvent event) {
+        if (sharedRequestHandler != null) {
+            event.addRequestHandler(sharedRequestHandler);
+        }
+    }
+
+    /**
+     * adds the request handlers that are not shared to the given new session
+     */
+    void sessionInit(VaadinSession session) {
+        for (Provider<? extends RequestHandler> provider : sessionRequestHandlers) {
+            session.addRequestHandler(provider.get());
+        }
+
+        if (sessionRequestHandlerIndex != null) {
+            final RequestHandler[] handlers = new RequestHandler[indexedSessionRequestHandlers.size()];
+
+            for (int i = 0; i < handlers.length; i++) {
+                handlers[i] = indexedSessionRequestHandlers.get(i).get();
+            }
+
+            session.addRequestHandler(sessionRequestHandlerIndex.dispatcher(handlers));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.function.Supplier;
+
+/**
+ * A JFR event for a phase of the scan of the packagesToScan, which is reading the type index, reading the
+ * scan result cache or scanning the classpath.
+ */
+@Name("com.vaadin.guice.Scan")
+@Label("Scan")
+@Category({"Vaadin", "Guice"})
+@Description("A phase of the scan of the packagesToScan")
+class ScanEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Packages")
+    String packages;
+
+    static <T> T record(String phase, String[] packages, Supplier<T> scan) {
+        final ScanEvent event = new ScanEvent();
+
+        event.begin();
+
+        final T result = scan.get();
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.packages = String.join(",", packages);
+            event.commit();
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Module;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.i18n.I18NProvider;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.ServiceDestroyListener;
+import com.vaadin.flow.server.SessionDestroyListener;
+import com.vaadin.flow.server.SessionInitListener;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+
+import org.reflections.Reflections;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.reflect.Modifier.isAbstract;
+
+/**
+ * The concrete types found in the packages to scan, sorted by the types and annotations
+ * the {@link GuiceVaadinServlet} is interested in. A type is added once and sorted
+ * into every category it belongs to.
+ */
+final class ScanResult {
+
+    static final List<Class<?>> CATEGORIES = List.of(
+            Module.class,
+            UI.class,
+            RequestHandler.class,
+            SessionInitListener.class,
+            SessionDestroyListener.class,
+            ServiceDestroyListener.class,
+            VaadinServiceInitListener.class,
+            I18NProvider.class
+    );
+
+    /**
+     * categories of types carrying an annotation, which is not inherited by subtypes
+     */
+    static final List<Class<? extends Annotation>> ANNOTATIONS = List.of(
+            Route.class
+    );
+
+    private final Map<Class<?>, Set<Class<?>>> typesByCategory = new ConcurrentHashMap<>();
+
+    ScanResult() {
+        for (Class<?> category : CATEGORIES) {
+            typesByCategory.put(category, ConcurrentHashMap.newKeySet());
+        }
+
+        for (Class<?> annotation : ANNOTATIONS) {
+            typesByCategory.put(annotation, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * creates a ScanResult from the subtypes and annotated types known to the given {@link Reflections}
+     */
+    static ScanResult of(Reflections reflections) {
+        final ScanResult scanResult = new ScanResult();
+
+        for (Class<?> category : CATEGORIES) {
+            reflections.getSubTypesOf(category).forEach(scanResult::add);
+        }
+
+        for (Class<? extends Annotation> annotation : ANNOTATIONS) {
+            reflections.getTypesAnnotatedWith(annotation, true).forEach(scanResult::add);
+        }
+
+        return scanResult;
+    }
+
+    /**
+     * returns true if the type with the given name is located in one of the given packages or their sub-packages
+     */
+    static boolean isInPackages(String typeName, String[] packages) {
+        for (String aPackage : packages) {
+            if (typeName.startsWith(aPackage) && typeName.length() > aPackage.length() && typeName.charAt(aPackage.length()) == '.') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * sorts the given type into every category it belongs to, abstract types are ignored
+     */
+    void add(Class<?> type) {
+        if (isAbstract(type.getModifiers())) {
+            return;
+        }
+
+        for (Class<?> category : CATEGORIES) {
+            if (category.isAssignableFrom(type)) {
+                typesByCategory.get(category).add(type);
+            }
+        }
+
+        for (Class<? extends Annotation> annotation : ANNOTATIONS) {
+            if (type.isAnnotationPresent(annotation)) {
+                typesByCategory.get(annotation).add(type);
+            }
+        }
+    }
+
+    /**
+     * sorts all types of the given ScanResult into this one
+     */
+    void addAll(ScanResult scanResult) {
+        scanResult.getTypes().forEach(this::add);
+    }
+
+    /**
+     * returns all types in all categories
+     */
+    Set<Class<?>> getTypes() {
+        final Set<Class<?>> types = new HashSet<>();
+
+        typesByCategory.values().forEach(types::addAll);
+
+        return types;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Set<Class<? extends T>> getSubTypesOf(Class<T> category) {
+        return (Set<Class<? extends T>>) (Set<?>) getTypes(category);
+    }
+
+    Set<Class<?>> getTypesAnnotatedWith(Class<? extends Annotation> annotation) {
+        return getTypes(annotation);
+    }
+
+    private Set<Class<?>> getTypes(Class<?> category) {
+        final Set<Class<?>> types = typesByCategory.get(category);
+
+        checkArgument(types != null, "%s is not a scanned category", category);
+
+        return Collections.unmodifiableSet(types);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.vfs.Vfs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Stores the {@link ScanResult} of a classpath scan in a binary file, so it can be reused on the next
+ * start as long as the classpath did not change.
+ * <p>
+ * The cache key is a fingerprint over the packages to scan and all classpath entries with their sizes and
+ * modification times. For directories, every file within is taken into account, since the modification
+ * time of a directory does not reflect changes to the files in it. If the classpath cannot be fingerprinted,
+ * for example because a classpath entry is not located in the file system, nothing is cached. A cache file
+ * that does not match, cannot be read or lists types that cannot be loaded any more is ignored and replaced.
+ */
+final class ScanResultCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanResultCache.class);
+
+    private static final int MAGIC = 0x56474943;
+    private static final int VERSION = 2;
+
+    private final Path directory;
+
+    ScanResultCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * returns the cached {@link ScanResult} if the classpath is unchanged, otherwise the result of the given
+     * scanner, which is then written to the cache
+     */
+    ScanResult get(ClassLoader classLoader, String[] packages, Supplier<ScanResult> scanner) {
+        final Optional<String> fingerprint = fingerprint(classLoader, packages);
+
+        if (!fingerprint.isPresent()) {
+            LOGGER.info("classpath cannot be fingerprinted, scan result is not cached");
+            return scanner.get();
+        }
+
+        final Path cacheFile = directory.resolve("vaadin-guice-" + name(packages) + ".scan");
+
+        final Optional<ScanResult> cached = read(cacheFile, fingerprint.get(), classLoader);
+
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        final ScanResult scanResult = scanner.get();
+
+        write(cacheFile, fingerprint.get(), scanResult);
+
+        return scanResult;
+    }
+
+    private Optional<ScanResult> read(Path cacheFile, String fingerprint, ClassLoader classLoader) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+
+        try (InputStream inputStream = Files.newInputStream(cacheFile);
+             DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(inputStream))) {
+
+            if (dataInputStream.readInt() != MAGIC || dataInputStream.readInt() != VERSION || !fingerprint.equals(dataInputStream.readUTF())) {
+                return Optional.empty();
+            }
+
+            final ScanResult scanResult = new ScanResult();
+
+            final int size = dataInputStream.readInt();
+
+            for (int i = 0; i < size; i++) {
+                scanResult.add(Class.forName(dataInputStream.readUTF(), false, classLoader));
+            }
+
+            return Optional.of(scanResult);
+        } catch (IOException | ClassNotFoundException | LinkageError e) {
+            LOGGER.warn("ignoring unusable scan result cache {}", cacheFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private void write(Path cacheFile, String fingerprint, ScanResult scanResult) {
+        final Set<String> typeNames = new TreeSet<>();
+
+        scanResult.getTypes().forEach(type -> typeNames.add(type.getName()));
+
+        try {
+            Files.createDirectories(directory);
+
+            //write to a temporary file first, so concurrently starting servlets never see a partial cache file
+            final Path temporaryFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+
+            try (OutputStream outputStream = Files.newOutputStream(temporaryFile);
+                 DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+                dataOutputStream.writeInt(MAGIC);
+                dataOutputStream.writeInt(VERSION);
+                dataOutputStream.writeUTF(fingerprint);
+                dataOutputStream.writeInt(typeNames.size());
+
+                for (String typeName : typeNames) {
+                    dataOutputStream.writeUTF(typeName);
+                }
+            }
+
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("could not write scan result cache {}", cacheFile, e);
+        }
+    }
+
+    private static String name(String[] packages) {
+        return Hashing
+                .sha256()
+                .hashString(String.join(",", new TreeSet<>(Arrays.asList(packages))), StandardCharsets.UTF_8)
+                .toString()
+                .substring(0, 16);
+    }
+
+    /**
+     * computes the fingerprint of the packages and the classpath, returns an empty {@link Optional} if
+     * one of the classpath entries is not located in the file system
+     */
+    static Optional<String> fingerprint(ClassLoader classLoader, String[] packages) {
+        final Set<String> classpath = new TreeSet<>();
+
+        final List<URL> urls = new ArrayList<>(ClasspathHelper.forClassLoader(classLoader));
+
+        urls.addAll(ClasspathHelper.forJavaClassPath());
+
+        for (String aPackage : packages) {
+            urls.addAll(ClasspathHelper.forPackage(aPackage, classLoader));
+        }
+
+        for (URL url : urls) {
+            final File file = Vfs.getFile(url);
+
+            if (file != null) {
+                classpath.add(file.getAbsolutePath());
+            } else if ("file".equals(url.getProtocol())) {
+                //entries that do not exist (yet) are part of the fingerprint as well
+                classpath.add(url.getPath());
+            } else {
+                return Optional.empty();
+            }
+        }
+
+        final Hasher hasher = Hashing.sha256().newHasher();
+
+        hasher.putInt(VERSION);
+
+        new TreeSet<>(Arrays.asList(packages)).forEach(aPackage -> hasher.putString(aPackage, StandardCharsets.UTF_8));
+
+        try {
+            for (String entry : classpath) {
+                final Path path = Path.of(entry);
+
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> files = Files.walk(path)) {
+                        for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                            putFile(hasher, file);
+                        }
+                    }
+                } else {
+                    putFile(hasher, path);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("could not fingerprint classpath", e);
+            return Optional.empty();
+        }
+
+        return Optional.of(hasher.hash().toString());
+    }
+
+    private static void putFile(Hasher hasher, Path file) throws IOException {
+        hasher.putString(file.toString(), StandardCharsets.UTF_8);
+
+        if (Files.exists(file)) {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+            hasher.putLong(attributes.size());
+            hasher.putLong(attributes.lastModifiedTime().toMillis());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Releases the {@link ScopedInstances} of detached UIs and destroyed sessions through the {@link DestroyCallbacks}.
+ * By default they are released by the thread detaching the UI or destroying the session. A background clean-up
+ * queues them instead and releases them in batches in its own thread, so a wave of expiring sessions does not hold
+ * up the threads of the servlet container. The queue is bounded, if it is full
+ * the instances are released by the calling thread. Queueing neither takes a lock nor wakes up a thread, the
+ * background thread looks for queued instances every {@link #INTERVAL_MILLIS} instead.
+ * <p>
+ * After every batch, the number of released and still queued UIs and sessions is recorded in the
+ * {@link GuiceVaadinMetrics}.
+ */
+final class ScopeCleanUp {
+
+    static final ScopeCleanUp INLINE = new ScopeCleanUp(0, NoMetrics.INSTANCE, DestroyCallbacks.NONE);
+
+    static final int BATCH_SIZE = 256;
+
+    static final long INTERVAL_MILLIS = 50;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScopeCleanUp.class);
+
+    private final Queue<ScopedInstances> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final int queueSize;
+    private final GuiceVaadinMetrics metrics;
+    private final DestroyCallbacks destroyCallbacks;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    private ScopeCleanUp(int queueSize, GuiceVaadinMetrics metrics, DestroyCallbacks destroyCallbacks) {
+        this.queueSize = queueSize;
+        this.metrics = metrics;
+        this.destroyCallbacks = destroyCallbacks;
+
+        if (queueSize > 0) {
+            worker = new Thread(this::run, "guice-vaadin-scope-clean-up");
+            worker.setDaemon(true);
+        } else {
+            worker = null;
+        }
+    }
+
+    /**
+     * creates and starts a background clean-up with a queue of the given size, 0 for releasing inline
+     */
+    static ScopeCleanUp background(int queueSize, GuiceVaadinMetrics metrics, DestroyCallbacks destroyCallbacks) {
+        checkArgument(queueSize >= 0, "queueSize must not be negative, was %s", queueSize);
+
+        final ScopeCleanUp cleanUp = new ScopeCleanUp(queueSize, metrics, destroyCallbacks);
+
+        if (queueSize == 0) {
+            return cleanUp;
+        }
+
+        cleanUp.worker.start();
+
+        return cleanUp;
+    }
+
+    /**
+     * releases the given instances, which are no longer reachable through their UI or session
+     */
+    void release(ScopedInstances instances) {
+        if (worker == null || closed || queueDepth.get() >= queueSize) {
+            destroyCallbacks.release(instances);
+            return;
+        }
+
+        queueDepth.incrementAndGet();
+        queue.add(instances);
+
+        //closed after the check above, the final batch of close() may have missed these instances
+        if (closed && queue.remove(instances)) {
+            queueDepth.decrementAndGet();
+            destroyCallbacks.release(instances);
+        }
+    }
+
+    /**
+     * returns the maximum number of queued UIs and sessions, 0 if they are released inline
+     */
+    int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * returns the number of UIs and sessions waiting to be released
+     */
+    int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * stops the background thread, waits for it to release the instances queued and releases those queued
+     * meanwhile. The thread is not interrupted, since that would keep the destroy callbacks from closing the
+     * instances it still releases.
+     */
+    void close() {
+        if (worker == null) {
+            return;
+        }
+
+        closed = true;
+        LockSupport.unpark(worker);
+
+        boolean interrupted = false;
+
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        releaseBatch();
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            final int released = releaseBatch();
+
+            if (released > 0) {
+                metrics.cleanedUp(released, getQueueDepth());
+            } else {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(INTERVAL_MILLIS));
+            }
+        }
+    }
+
+    /*
+     * releases up to BATCH_SIZE queued instances, or all of them once closed, returns how many were released
+     */
+    private int releaseBatch() {
+        int released = 0;
+        ScopedInstances instances;
+
+        while ((closed || released < BATCH_SIZE) && (instances = queue.poll()) != null) {
+            queueDepth.decrementAndGet();
+            released++;
+
+            try {
+                destroyCallbacks.release(instances);
+            } catch (RuntimeException e) {
+                LOGGER.warn("could not release scoped instances", e);
+            }
+        }
+
+        return released;
+    }
+}
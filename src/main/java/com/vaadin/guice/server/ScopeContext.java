@@ -0,0 +1,78 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * The instances of the {@link VaadinSessionScope} and {@link UIScope} a task of the {@link ScopedExecutorService}
+ * was submitted with. While the task runs, the scopes look up their instances here whenever the current
+ * {@link com.vaadin.flow.server.VaadinSession} and {@link com.vaadin.flow.component.UI} are not set on the
+ * task's thread, so the task neither holds nor needs the session lock. Inside UI#access, the current UI and
+ * session are used instead.
+ */
+final class ScopeContext {
+
+    private static final ThreadLocal<ScopeContext> CURRENT = new ThreadLocal<>();
+
+    private final ScopedInstances vaadinSessionScopedInstances;
+    private final ScopedInstances uiScopedInstances;
+
+    ScopeContext(ScopedInstances vaadinSessionScopedInstances, ScopedInstances uiScopedInstances) {
+        this.vaadinSessionScopedInstances = vaadinSessionScopedInstances;
+        this.uiScopedInstances = uiScopedInstances;
+    }
+
+    /**
+     * returns the context of the task running on this thread or null, if this thread does not run a task
+     */
+    static ScopeContext current() {
+        return CURRENT.get();
+    }
+
+    ScopedInstances getVaadinSessionScopedInstances() {
+        checkState(vaadinSessionScopedInstances != null, "no VaadinSession was current when the task was submitted");
+
+        return vaadinSessionScopedInstances;
+    }
+
+    ScopedInstances getUIScopedInstances() {
+        checkState(uiScopedInstances != null, "no UI was current when the task was submitted");
+
+        return uiScopedInstances;
+    }
+
+    /**
+     * returns a runnable that runs the given task in this context
+     */
+    Runnable wrap(Runnable task) {
+        return () -> {
+            final ScopeContext previous = CURRENT.get();
+
+            CURRENT.set(this);
+
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event for a thread waiting for another thread creating the instance of a scoped key in the same UI
+ * or session. Scoped instances are not created under the session or UI lock, so this is where threads asking
+ * for scoped instances can block.
+ */
+@Name("com.vaadin.guice.ScopeWait")
+@Label("Scope Wait")
+@Category({"Vaadin", "Guice"})
+@Description("A thread waiting for another thread creating a scoped instance")
+class ScopeWaitEvent extends Event {
+
+    @Label("Key")
+    String key;
+
+    @Label("Creating Thread")
+    Thread creatingThread;
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinSession;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An {@link ExecutorService} whose tasks see the instances of the {@link com.vaadin.guice.annotation.UIScope}
+ * and {@link com.vaadin.guice.annotation.VaadinSessionScope} of the UI and session that were current when they
+ * were submitted, so scoped objects can be injected and used in background threads without
+ * {@link UI#access(com.vaadin.flow.server.Command)}. Tasks submitted by a task run in the same context.
+ * <p>
+ * Only the scoped instances are propagated, {@link UI#getCurrent()} and {@link VaadinSession#getCurrent()}
+ * stay null in a task and the session lock is not held, so changing components still requires
+ * {@link UI#access(com.vaadin.flow.server.Command)}. Inside {@link UI#access(com.vaadin.flow.server.Command)},
+ * the scoped instances of the UI accessed are used, not those the task was submitted with. Instances created in a
+ * task after its UI was detached or its session was destroyed are not kept.
+ * <p>
+ * The executor is only created and bound by the {@link GuiceVaadinServlet} if the servlet is annotated with
+ * {@link com.vaadin.guice.annotation.ScopedExecutorThreads} or the init-parameter 'scopedExecutorThreads' is set,
+ * it is shut down when the servlet is destroyed. With 0 threads, every task runs in its own virtual thread, or in a
+ * cached pool of daemon threads before Java 21, otherwise the tasks run in a fixed number of platform threads.
+ */
+public final class ScopedExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService executorService;
+    private final UIScope uiScope;
+    private final VaadinSessionScope vaadinSessionScope;
+
+    ScopedExecutorService(ExecutorService executorService, UIScope uiScope, VaadinSessionScope vaadinSessionScope) {
+        this.executorService = checkNotNull(executorService);
+        this.uiScope = checkNotNull(uiScope);
+        this.vaadinSessionScope = checkNotNull(vaadinSessionScope);
+    }
+
+    /**
+     * creates the executor for the given number of platform threads, 0 for a thread per task
+     */
+    static ScopedExecutorService create(int threads, UIScope uiScope, VaadinSessionScope vaadinSessionScope) {
+        checkArgument(threads >= 0, "threads must not be negative, was %s", threads);
+
+        final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("guice-vaadin-scoped-%d")
+                .setDaemon(true)
+                .build();
+
+        final ExecutorService executorService = threads > 0
+                ? Executors.newFixedThreadPool(threads, threadFactory)
+                : newVirtualThreadPerTaskExecutor().orElseGet(() -> Executors.newCachedThreadPool(threadFactory));
+
+        return new ScopedExecutorService(executorService, uiScope, vaadinSessionScope);
+    }
+
+    private static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        final ScopeContext scopeContext = capture();
+
+        executorService.execute(scopeContext != null ? scopeContext.wrap(checkNotNull(command)) : checkNotNull(command));
+    }
+
+    /*
+     * runs on the submitting thread, which holds the session lock during a request, so creating the
+     * instances of a UI that has none yet can safely add the detach listener to the UI. The current
+     * session and UI take precedence over the context of the task submitting, so a task submitted in
+     * UI#access of another UI runs with that UI. Returns null if there is neither.
+     */
+    private ScopeContext capture() {
+        final VaadinSession vaadinSession = VaadinSession.getCurrent();
+
+        if (vaadinSession == null) {
+            return ScopeContext.current();
+        }
+
+        final UI ui = UI.getCurrent();
+
+        return new ScopeContext(
+                vaadinSessionScope.getScopedInstances(vaadinSession),
+                ui != null ? uiScope.getScopedInstances(vaadinSession, ui) : null
+        );
+    }
+
+    @Override
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return executorService.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executorService.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executorService.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executorService.awaitTermination(timeout, unit);
+    }
+}
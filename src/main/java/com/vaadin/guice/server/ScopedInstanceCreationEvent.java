@@ -0,0 +1,64 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event for the creation of an instance in the {@link UIScope} or {@link VaadinSessionScope}.
+ */
+@Name("com.vaadin.guice.ScopedInstanceCreation")
+@Label("Scoped Instance Creation")
+@Category({"Vaadin", "Guice"})
+@Description("The creation of an instance in the UIScope or VaadinSessionScope")
+class ScopedInstanceCreationEvent extends Event {
+
+    @Label("Scope")
+    String scope;
+
+    @Label("Key")
+    String key;
+
+    /**
+     * returns a provider recording an event for every instance the given provider creates. Since scoped
+     * providers are only asked for instances that do not exist yet, this costs nothing for hits.
+     */
+    static <T> Provider<T> recording(String scope, Key<T> key, Provider<T> provider) {
+        return () -> {
+            final ScopedInstanceCreationEvent event = new ScopedInstanceCreationEvent();
+
+            event.begin();
+
+            final T instance = provider.get();
+
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.scope = scope;
+                event.key = key.toString();
+                event.commit();
+            }
+
+            return instance;
+        };
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * The instances of a scope in one UI or session. Since the scoped keys are known once the injector
+ * is built, every key is given an integer slot by {@link Slots} when it is scoped, and the instances
+ * are stored in fixed size chunks of an array indexed by that slot, which are allocated when the first
+ * instance of a chunk is created. Looking up an instance does neither hash the key nor allocate.
+ * <p>
+ * Creation is coordinated per slot: while an instance is being created, its slot holds a
+ * {@link Creation} that other threads asking for the same key wait for, so instances of different keys
+ * are created in parallel and every key still gets exactly one instance. Threads waiting for each
+ * other's creations are detected and fail instead of deadlocking.
+ * <p>
+ * Hits, creations and waits are recorded in the {@link GuiceVaadinMetrics.KeyMetrics} of the key.
+ */
+final class ScopedInstances {
+
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final Object[][] NO_CHUNKS = new Object[0][];
+
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final AtomicReferenceFieldUpdater<ScopedInstances, Object[][]> CHUNKS =
+            AtomicReferenceFieldUpdater.newUpdater(ScopedInstances.class, Object[][].class, "chunks");
+
+    /*
+     * the creation every thread is currently waiting for, used to detect cycles
+     */
+    private static final Map<Thread, Creation> WAITING = new ConcurrentHashMap<>();
+
+    /*
+     * chunks are never replaced once allocated, growing only copies the references to them
+     */
+    private volatile Object[][] chunks = NO_CHUNKS;
+
+    private final GuiceVaadinMetrics.ScopeMetrics metrics;
+
+    ScopedInstances(GuiceVaadinMetrics.ScopeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * returns the instance of the given key, creating it with the given provider if there is none yet.
+     *
+     * @param slot    the slot of the key, as returned by {@link Slots#of(Key)}
+     * @param metrics the recorder of the key
+     * @throws IllegalStateException if the creation of the instance waits for a creation that in turn
+     *                               waits for this thread
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(int slot, Key<T> key, Provider<T> provider, GuiceVaadinMetrics.KeyMetrics metrics) {
+        Object value = get(slot);
+
+        while (true) {
+            if (value == null) {
+                final Creation creation = new Creation();
+
+                if (compareAndSet(slot, null, creation)) {
+                    return (T) creation.run(this, slot, provider, metrics);
+                }
+
+                value = get(slot);
+            } else if (!(value instanceof Creation)) {
+                metrics.hit();
+                return (T) value;
+            } else {
+                final Creation creation = (Creation) value;
+
+                if (creation.owner == Thread.currentThread()) {
+                    //reentrant creation within the same thread, Guice itself deals with circular dependencies
+                    return provider.get();
+                }
+
+                final ScopeWaitEvent event = new ScopeWaitEvent();
+
+                event.begin();
+
+                final long start = System.nanoTime();
+                final boolean succeeded = creation.await(key);
+
+                metrics.waited(System.nanoTime() - start);
+
+                event.end();
+
+                if (event.shouldCommit()) {
+                    event.key = key.toString();
+                    event.creatingThread = creation.owner;
+                    event.commit();
+                }
+
+                if (succeeded) {
+                    return (T) creation.result;
+                }
+
+                //the creation failed in the other thread, try again
+                value = get(slot);
+            }
+        }
+    }
+
+    /**
+     * returns true if no instance has been created
+     */
+    boolean isEmpty() {
+        for (Object[] chunk : chunks) {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (SLOT.getVolatile(chunk, i) != null) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * records that these instances are released by their UI or session and returns those implementing
+     * {@link AutoCloseable} in the reverse order of their slots, instances still being created are skipped
+     */
+    List<AutoCloseable> release() {
+        int instances = 0;
+        List<AutoCloseable> closeables = List.of();
+
+        final Object[][] chunks = this.chunks;
+
+        for (int c = chunks.length - 1; c >= 0; c--) {
+            for (int i = CHUNK_SIZE - 1; i >= 0; i--) {
+                final Object value = SLOT.getVolatile(chunks[c], i);
+
+                if (value == null || value instanceof Creation) {
+                    continue;
+                }
+
+                instances++;
+
+                if (value instanceof AutoCloseable) {
+                    if (closeables.isEmpty()) {
+                        closeables = new ArrayList<>();
+                    }
+
+                    closeables.add((AutoCloseable) value);
+                }
+            }
+        }
+
+        metrics.closed(instances);
+
+        return closeables;
+    }
+
+    GuiceVaadinMetrics.ScopeMetrics getMetrics() {
+        return metrics;
+    }
+
+    private Object get(int slot) {
+        final Object[][] chunks = this.chunks;
+        final int index = slot >>> CHUNK_SHIFT;
+
+        return index < chunks.length ? SLOT.getVolatile(chunks[index], slot & (CHUNK_SIZE - 1)) : null;
+    }
+
+    private boolean compareAndSet(int slot, Object expected, Object value) {
+        return SLOT.compareAndSet(chunk(slot >>> CHUNK_SHIFT), slot & (CHUNK_SIZE - 1), expected, value);
+    }
+
+    private Object[] chunk(int index) {
+        Object[][] chunks;
+
+        while (index >= (chunks = this.chunks).length) {
+            final Object[][] grown = Arrays.copyOf(chunks, index + 1);
+
+            for (int i = chunks.length; i < grown.length; i++) {
+                grown[i] = new Object[CHUNK_SIZE];
+            }
+
+            CHUNKS.compareAndSet(this, chunks, grown);
+        }
+
+        return chunks[index];
+    }
+
+    /**
+     * assigns the slots of the keys of one scope
+     */
+    static final class Slots implements Serializable {
+        private final Map<Key<?>, Integer> slots = new ConcurrentHashMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+
+        int of(Key<?> key) {
+            return slots.computeIfAbsent(key, k -> count.getAndIncrement());
+        }
+    }
+
+    private static final class Creation {
+        final Thread owner = Thread.currentThread();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Object result;
+        volatile boolean succeeded;
+
+        Object run(ScopedInstances instances, int slot, Provider<?> provider, GuiceVaadinMetrics.KeyMetrics metrics) {
+            try {
+                final long start = System.nanoTime();
+                final Object instance = provider.get();
+
+                metrics.created(System.nanoTime() - start);
+
+                instances.compareAndSet(slot, this, instance);
+
+                result = instance;
+                succeeded = true;
+
+                return instance;
+            } catch (RuntimeException | Error e) {
+                instances.compareAndSet(slot, this, null);
+                throw e;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * waits for this creation to finish, returns true if it succeeded
+         */
+        boolean await(Key<?> key) {
+            final Thread current = Thread.currentThread();
+
+            WAITING.put(current, this);
+
+            boolean interrupted = false;
+
+            try {
+                checkState(!isWaitingFor(current), "cyclic creation of %s across threads", key);
+
+                while (true) {
+                    try {
+                        done.await();
+                        return succeeded;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                WAITING.remove(current);
+
+                if (interrupted) {
+                    current.interrupt();
+                }
+            }
+        }
+
+        /*
+         * follows the owners of the creations waited for, starting at this one. A creation can finish and
+         * its owner go on to wait for another one while the chain is followed, so a cycle is only reported
+         * if none of its creations has finished after it was seen completely.
+         */
+        private boolean isWaitingFor(Thread thread) {
+            final List<Creation> chain = new ArrayList<>();
+
+            for (Creation creation = this; creation != null && chain.size() <= WAITING.size(); creation = WAITING.get(creation.owner)) {
+                chain.add(creation);
+
+                if (creation.owner == thread) {
+                    return chain.stream().allMatch(c -> c.done.getCount() > 0);
+                }
+            }
+
+            return false;
+        }
+    }
+}
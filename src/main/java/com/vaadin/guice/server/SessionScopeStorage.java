@@ -0,0 +1,166 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinSession;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The instances of the {@link VaadinSessionScope} of a {@link VaadinSession} and of the {@link UIScope} of its UIs.
+ * A {@link GuiceVaadinSession} holds its storage in a field, any other session holds it in a session attribute.
+ */
+class SessionScopeStorage implements Serializable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionScopeStorage.class);
+
+    private static final AtomicBoolean FOREIGN_SESSION_REPORTED = new AtomicBoolean();
+
+    private static final AtomicReferenceFieldUpdater<SessionScopeStorage, ScopedInstances> VAADIN_SESSION_SCOPED_INSTANCES =
+            AtomicReferenceFieldUpdater.newUpdater(SessionScopeStorage.class, ScopedInstances.class, "vaadinSessionScopedInstances");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<SessionScopeStorage, ConcurrentMap> UI_SCOPED_INSTANCES =
+            AtomicReferenceFieldUpdater.newUpdater(SessionScopeStorage.class, ConcurrentMap.class, "uiScopedInstances");
+
+    /*
+     * created lazily, since transient fields are not restored when the storage is deserialized
+     */
+    private transient volatile ScopedInstances vaadinSessionScopedInstances;
+    private transient volatile ConcurrentMap<UI, ScopedInstances> uiScopedInstances;
+
+    ScopedInstances getVaadinSessionScopedInstances(GuiceVaadinMetrics.ScopeMetrics metrics) {
+        ScopedInstances instances;
+
+        while ((instances = vaadinSessionScopedInstances) == null) {
+            if (VAADIN_SESSION_SCOPED_INSTANCES.compareAndSet(this, null, new ScopedInstances(metrics))) {
+                metrics.opened();
+            }
+        }
+
+        return instances;
+    }
+
+    /**
+     * detaches the instances of the {@link VaadinSessionScope} from the session and hands them to the given clean-up
+     */
+    void clearVaadinSessionScopedInstances(ScopeCleanUp cleanUp) {
+        final ScopedInstances instances = VAADIN_SESSION_SCOPED_INSTANCES.getAndSet(this, null);
+
+        if (instances != null) {
+            cleanUp.release(instances);
+        }
+    }
+
+    /**
+     * returns the instances in the {@link UIScope} of the given {@link UI}, UIs are compared by identity.
+     * The instances are released as soon as the UI is detached, since they usually reference the UI
+     * and would otherwise be kept until the session is destroyed, they are handed to the given clean-up then.
+     */
+    @SuppressWarnings("unchecked")
+    ScopedInstances getUIScopedInstances(UI ui, GuiceVaadinMetrics.ScopeMetrics metrics, ScopeCleanUp cleanUp) {
+        ConcurrentMap<UI, ScopedInstances> instancesByUI;
+
+        while ((instancesByUI = uiScopedInstances) == null) {
+            UI_SCOPED_INSTANCES.compareAndSet(this, null, new ConcurrentHashMap<>());
+        }
+
+        final ScopedInstances instances = instancesByUI.get(ui);
+
+        return instances != null ? instances : instancesByUI.computeIfAbsent(ui, u -> {
+            u.addDetachListener(event -> {
+                event.unregisterListener();
+                removeUIScopedInstances(u, cleanUp);
+            });
+
+            metrics.opened();
+
+            return new ScopedInstances(metrics);
+        });
+    }
+
+    /**
+     * detaches the instances of the {@link UIScope} of the given {@link UI} from the session and hands them to the
+     * given clean-up
+     */
+    void removeUIScopedInstances(UI ui, ScopeCleanUp cleanUp) {
+        final ConcurrentMap<UI, ScopedInstances> instancesByUI = uiScopedInstances;
+
+        if (instancesByUI != null) {
+            final ScopedInstances instances = instancesByUI.remove(ui);
+
+            if (instances != null) {
+                cleanUp.release(instances);
+            }
+        }
+    }
+
+    /**
+     * detaches the instances of the {@link UIScope} of all UIs from the session and hands them to the given clean-up
+     */
+    @SuppressWarnings("unchecked")
+    void clearUIScopedInstances(ScopeCleanUp cleanUp) {
+        final ConcurrentMap<UI, ScopedInstances> instancesByUI = UI_SCOPED_INSTANCES.getAndSet(this, null);
+
+        if (instancesByUI != null) {
+            instancesByUI.values().forEach(cleanUp::release);
+        }
+    }
+
+    /**
+     * returns the storage of the given session. Sessions not created by the {@link GuiceVaadinServletService}, because
+     * createServletService or createVaadinSession was overridden, keep it in a session attribute, which needs the
+     * session lock on every lookup
+     */
+    static SessionScopeStorage of(VaadinSession vaadinSession) {
+        if (vaadinSession instanceof GuiceVaadinSession) {
+            return ((GuiceVaadinSession) vaadinSession).getScopeStorage();
+        }
+
+        if (FOREIGN_SESSION_REPORTED.compareAndSet(false, true)) {
+            LOGGER.warn(
+                    "{} was not created by a GuiceVaadinServletService, scoped instances are kept in a session attribute",
+                    vaadinSession.getClass().getName()
+            );
+        }
+
+        final Lock lock = vaadinSession.getLockInstance();
+
+        lock.lock();
+
+        try {
+            SessionScopeStorage storage = vaadinSession.getAttribute(SessionScopeStorage.class);
+
+            if (storage == null) {
+                storage = new SessionScopeStorage();
+                vaadinSession.setAttribute(SessionScopeStorage.class, storage);
+            }
+
+            return storage;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
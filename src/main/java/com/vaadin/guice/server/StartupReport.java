@@ -0,0 +1,217 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Module;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.spi.ProvisionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Times the phases of the startup of a {@link GuiceVaadinServlet} and the slowest provisions while the
+ * injector is created and the servlet is initialized. When finished, the report is logged in one line and
+ * written to a JSON file. A disabled report does not time anything and does not install a provision
+ * listener, so it costs nothing. The provision listener of an enabled report stays bound to the injector
+ * after startup, so every later provision still costs one listener callback, but nothing is recorded.
+ */
+final class StartupReport {
+
+    static final StartupReport DISABLED = new StartupReport(null);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupReport.class);
+
+    private static final int SLOWEST_PROVISIONS = 10;
+
+    private final Path file;
+    private final long start = System.nanoTime();
+    private final Queue<Timing> phases = new ConcurrentLinkedQueue<>();
+    private final Queue<Timing> provisions = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean recordingProvisions = true;
+
+    private StartupReport(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * returns a report that is written to the given JSON file when finished
+     */
+    static StartupReport to(Path file) {
+        return new StartupReport(file);
+    }
+
+    boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * runs the given action as a phase of the startup
+     */
+    <T> T time(String phase, Supplier<T> action) {
+        if (file == null) {
+            return action.get();
+        }
+
+        final long phaseStart = System.nanoTime();
+
+        try {
+            return action.get();
+        } finally {
+            phases.add(new Timing(phase, System.nanoTime() - phaseStart));
+        }
+    }
+
+    void time(String phase, Runnable action) {
+        time(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * returns a module recording how long every provision takes until the report is finished. The duration
+     * of a provision includes those of the provisions of its dependencies. Guice cannot unbind a listener, so
+     * it keeps being called after the report is finished, but then only provisions.
+     */
+    Module provisionTimer() {
+        final ProvisionListener provisionListener = new ProvisionListener() {
+            @Override
+            public <T> void onProvision(ProvisionInvocation<T> provision) {
+                if (!recordingProvisions) {
+                    provision.provision();
+                    return;
+                }
+
+                final long provisionStart = System.nanoTime();
+
+                try {
+                    provision.provision();
+                } finally {
+                    if (recordingProvisions) {
+                        provisions.add(new Timing(provision.getBinding().getKey().toString(), System.nanoTime() - provisionStart));
+                    }
+                }
+            }
+        };
+
+        return binder -> binder.bindListener(Matchers.any(), provisionListener);
+    }
+
+    /**
+     * stops recording provisions, logs the report and writes it to the file. The recorded provisions are
+     * released, as the provision listener keeps the report reachable for the lifetime of the injector.
+     */
+    void finish() {
+        if (file == null) {
+            return;
+        }
+
+        recordingProvisions = false;
+
+        final long total = System.nanoTime() - start;
+
+        final List<Timing> phases = new ArrayList<>(this.phases);
+
+        final List<Timing> slowestProvisions = provisions
+                .stream()
+                .sorted(Comparator.comparingLong((Timing timing) -> timing.nanos).reversed())
+                .limit(SLOWEST_PROVISIONS)
+                .collect(toList());
+
+        provisions.clear();
+
+        LOGGER.info(
+                "startup took {} ms, phases: {}, slowest provisions: {}",
+                millis(total),
+                phases.stream().map(Timing::toString).collect(joining(", ")),
+                slowestProvisions.stream().map(Timing::toString).collect(joining(", "))
+        );
+
+        final String json = "{\n"
+                + "  \"totalMillis\": " + millis(total) + ",\n"
+                + "  \"phases\": " + toJson(phases) + ",\n"
+                + "  \"slowestProvisions\": " + toJson(slowestProvisions) + "\n"
+                + "}\n";
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOGGER.warn("could not write the startup report to {}", file, e);
+        }
+    }
+
+    private static String toJson(List<Timing> timings) {
+        return timings
+                .stream()
+                .map(timing -> "{\"name\": " + quote(timing.name) + ", \"millis\": " + millis(timing.nanos) + "}")
+                .collect(joining(",\n    ", "[\n    ", "\n  ]"));
+    }
+
+    private static String quote(String value) {
+        final StringBuilder quoted = new StringBuilder("\"");
+
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000d);
+    }
+
+    private static final class Timing {
+        final String name;
+        final long nanos;
+
+        Timing(String name, long nanos) {
+            this.name = name;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + millis(nanos) + "ms";
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Reader for the build-time type index written by the
+ * {@code com.vaadin.guice.processor.TypeIndexProcessor} of the
+ * flow-guice-addon-index-processor artifact. Reading the index replaces the
+ * classpath scan in {@link GuiceVaadinServlet#init(jakarta.servlet.ServletConfig)}.
+ */
+final class TypeIndex {
+
+    static final String LOCATION = "META-INF/vaadin-guice/type.index";
+
+    private TypeIndex() {
+    }
+
+    /**
+     * reads all type indexes visible to the given {@link ClassLoader} and collects those indexed types
+     * that are located in one of the given packages.
+     *
+     * @return the indexed types or an empty {@link Optional} if there is no type index on the classpath
+     */
+    static Optional<ScanResult> load(ClassLoader classLoader, String[] packages) {
+        final List<URL> indexes;
+
+        try {
+            indexes = Collections.list(classLoader.getResources(LOCATION));
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to look up " + LOCATION, e);
+        }
+
+        if (indexes.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final ScanResult scanResult = new ScanResult();
+
+        for (URL index : indexes) {
+            final Properties properties = new Properties();
+
+            try (InputStream inputStream = index.openStream()) {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to read type index " + index, e);
+            }
+
+            for (String className : properties.stringPropertyNames()) {
+                if (!ScanResult.isInPackages(className, packages)) {
+                    continue;
+                }
+
+                try {
+                    scanResult.add(Class.forName(className, false, classLoader));
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException("type index " + index + " lists " + className + ", which cannot be loaded. The index is out of date, please rebuild", e);
+                }
+            }
+        }
+
+        return Optional.of(scanResult);
+    }
+}
@@ -25,71 +25,69 @@ import com.vaadin.flow.server.SessionDestroyListener;
 import com.vaadin.flow.server.VaadinSession;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.WeakHashMap;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static java.util.Collections.synchronizedMap;
 
 class UIScope implements Scope, Serializable, SessionDestroyListener {
 
-    private final transient Map<VaadinSession, Map<UI, Map<Key<?>, Object>>> scopesBySession;
+    private final ScopedInstances.Slots slots = new ScopedInstances.Slots();
+    private volatile GuiceVaadinMetrics.ScopeMetrics metrics = NoMetrics.INSTANCE;
+    private volatile ScopeCleanUp cleanUp = ScopeCleanUp.INLINE;
 
-    @SuppressWarnings("WeakerAccess")
-    public UIScope(){
-        scopesBySession = synchronizedMap(new WeakHashMap<>());
+    /**
+     * sets the metrics to record this scope in, keys scoped before are not recorded
+     */
+    void setMetrics(GuiceVaadinMetrics metrics) {
+        this.metrics = metrics.forScope("UIScope");
+    }
+
+    /**
+     * sets the clean-up releasing the instances of detached UIs and destroyed sessions
+     */
+    void setCleanUp(ScopeCleanUp cleanUp) {
+        this.cleanUp = cleanUp;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> Provider<T> scope(Key<T> key, Provider<T> provider) {
-        return () -> {
-            final VaadinSession vaadinSession = checkNotNull(
-                VaadinSession.getCurrent(),
-                "VaadinSession is not set up yet."
-            );
-
-            Map<UI, Map<Key<?>, Object>> uiToScopeMap;
-
-            synchronized (vaadinSession) {
-                uiToScopeMap = scopesBySession.get(vaadinSession);
+        final int slot = slots.of(key);
+        final GuiceVaadinMetrics.ScopeMetrics scopeMetrics = metrics;
+        final GuiceVaadinMetrics.KeyMetrics keyMetrics = scopeMetrics.forKey(key);
+        final Provider<T> creatingProvider = ScopedInstanceCreationEvent.recording("UIScope", key, provider);
 
-                if(uiToScopeMap == null){
-                    uiToScopeMap = new WeakHashMap<>();
-                    scopesBySession.put(vaadinSession, uiToScopeMap);
-                }
-           }
-
-            final UI currentUI = checkNotNull(
-                UI.getCurrent(),
-                "current UI is not set up yet"
-            );
+        return () -> {
+            final VaadinSession vaadinSession = VaadinSession.getCurrent();
+            final UI currentUI = UI.getCurrent();
+            final ScopeContext scopeContext = vaadinSession != null && currentUI != null ? null : ScopeContext.current();
 
-            synchronized (currentUI){
-                Map<Key<?>, Object> scopeMap = uiToScopeMap.get(currentUI);
+            final ScopedInstances scopedInstances;
 
-                if(scopeMap == null){
-                    scopeMap = new HashMap<>();
-                    uiToScopeMap.put(currentUI, scopeMap);
-                }
+            if (scopeContext != null) {
+                scopedInstances = scopeContext.getUIScopedInstances();
+            } else {
+                final SessionScopeStorage storage = SessionScopeStorage.of(checkNotNull(
+                    vaadinSession,
+                    "VaadinSession is not set up yet."
+                ));
 
-                T result = (T)scopeMap.get(key);
+                checkNotNull(currentUI, "current UI is not set up yet");
 
-                if(result == null){
-                    result = provider.get();
-                    scopeMap.put(key, result);
-              }
+                scopedInstances = storage.getUIScopedInstances(currentUI, scopeMetrics, cleanUp);
+            }
 
-                return result;
-              }
+            return scopedInstances.get(slot, key, creatingProvider, keyMetrics);
         };
     }
 
+    /**
+     * returns the instances of this scope in the given UI of the given session
+     */
+    ScopedInstances getScopedInstances(VaadinSession vaadinSession, UI ui) {
+        return SessionScopeStorage.of(vaadinSession).getUIScopedInstances(ui, metrics, cleanUp);
+    }
+
     @Override
     public void sessionDestroy(SessionDestroyEvent event) {
-        synchronized (event.getSession()) {
-            scopesBySession.remove(event.getSession());
-        }
+        SessionScopeStorage.of(event.getSession()).clearUIScopedInstances(cleanUp);
     }
 }
@@ -16,10 +16,18 @@
 package com.vaadin.guice.server;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.ScopeAnnotation;
+import com.google.inject.Singleton;
 
 import com.vaadin.flow.i18n.I18NProvider;
 import com.vaadin.guice.annotation.UIScope;
 import com.vaadin.guice.annotation.VaadinSessionScope;
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Optional;
 
 class VaadinModule extends AbstractModule {
 
@@ -31,9 +39,57 @@ class VaadinModule extends AbstractModule {
 
     @Override
     protected void configure() {
-        guiceVaadinServlet.getI18NProvider().ifPresent( i18NProvider -> bind(I18NProvider.class).to(i18NProvider));
+        final Optional<Class<? extends I18NProvider>> i18NProviderClass = guiceVaadinServlet.getI18NProvider();
+
+        if (i18NProviderClass.isPresent()) {
+            bindI18NProvider(i18NProviderClass.get());
+        } else {
+            guiceVaadinServlet.getCompactI18NProvider().ifPresent(i18NProvider -> bindI18NProvider(() -> i18NProvider, Singleton.class));
+        }
 
         bindScope(UIScope.class, guiceVaadinServlet.getUiScope());
         bindScope(VaadinSessionScope.class, guiceVaadinServlet.getVaadinSessionScope());
+
+        guiceVaadinServlet
+                .getScopedExecutorService()
+                .ifPresent(scopedExecutorService -> bind(ScopedExecutorService.class).toInstance(scopedExecutorService));
+    }
+
+    /*
+     * a provider class without a scope annotation is shared, since Flow asks for the I18NProvider on every
+     * translation, otherwise it keeps its own scope
+     */
+    private void bindI18NProvider(Class<? extends I18NProvider> i18NProviderClass) {
+        final Optional<Class<? extends Annotation>> scope = scopeAnnotationOf(i18NProviderClass);
+
+        if (scope.isPresent() && guiceVaadinServlet.getTranslationCacheSize() == 0) {
+            bind(I18NProvider.class).to(i18NProviderClass);
+        } else {
+            bindI18NProvider(getProvider(i18NProviderClass), scope.orElse(Singleton.class));
+        }
+    }
+
+    /*
+     * the translation cache has the scope of the I18NProvider it caches the translations of
+     */
+    private void bindI18NProvider(Provider<? extends I18NProvider> i18NProvider, Class<? extends Annotation> scope) {
+        final long translationCacheSize = guiceVaadinServlet.getTranslationCacheSize();
+
+        if (translationCacheSize > 0) {
+            bind(I18NProvider.class)
+                    .toProvider(() -> new CachingI18NProvider(i18NProvider.get(), translationCacheSize))
+                    .in(scope);
+        } else {
+            bind(I18NProvider.class).toProvider(i18NProvider::get).in(scope);
+        }
+    }
+
+    private static Optional<Class<? extends Annotation>> scopeAnnotationOf(Class<?> type) {
+        return Arrays
+                .stream(type.getAnnotations())
+                .<Class<? extends Annotation>>map(Annotation::annotationType)
+                .filter(annotationType -> annotationType.isAnnotationPresent(ScopeAnnotation.class)
+                        || annotationType.isAnnotationPresent(Scope.class))
+                .findFirst();
     }
 }
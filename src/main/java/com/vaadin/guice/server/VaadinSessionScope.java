@@ -24,50 +24,57 @@ import com.vaadin.flow.server.SessionDestroyListener;
 import com.vaadin.flow.server.VaadinSession;
 
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.WeakHashMap;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 class VaadinSessionScope implements Scope, Serializable, SessionDestroyListener {
 
-    private final transient Map<VaadinSession, Map<Key<?>, Object>> scopeMapsBySession;
+    private final ScopedInstances.Slots slots = new ScopedInstances.Slots();
+    private volatile GuiceVaadinMetrics.ScopeMetrics metrics = NoMetrics.INSTANCE;
+    private volatile ScopeCleanUp cleanUp = ScopeCleanUp.INLINE;
 
-    @SuppressWarnings("WeakerAccess")
-    public VaadinSessionScope(){
-        scopeMapsBySession = Collections.synchronizedMap(new WeakHashMap<>());
+    /**
+     * sets the metrics to record this scope in, keys scoped before are not recorded
+     */
+    void setMetrics(GuiceVaadinMetrics metrics) {
+        this.metrics = metrics.forScope("VaadinSessionScope");
+    }
+
+    /**
+     * sets the clean-up releasing the instances of destroyed sessions
+     */
+    void setCleanUp(ScopeCleanUp cleanUp) {
+        this.cleanUp = cleanUp;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> Provider<T> scope(Key<T> key, Provider<T> provider) {
-        return () -> {
-            final VaadinSession vaadinSession = checkNotNull(VaadinSession.getCurrent());
-
-            synchronized (vaadinSession){
-                Map<Key<?>, Object> scopeMap = scopeMapsBySession.get(vaadinSession);
+        final int slot = slots.of(key);
+        final GuiceVaadinMetrics.ScopeMetrics scopeMetrics = metrics;
+        final GuiceVaadinMetrics.KeyMetrics keyMetrics = scopeMetrics.forKey(key);
+        final Provider<T> creatingProvider = ScopedInstanceCreationEvent.recording("VaadinSessionScope", key, provider);
 
-                if (scopeMap == null) {
-                    scopeMap = new HashMap<>();
-                    scopeMapsBySession.put(vaadinSession, scopeMap);
-                }
-
-                T result = (T)scopeMap.get(key);
+        return () -> {
+            final VaadinSession vaadinSession = VaadinSession.getCurrent();
+            final ScopeContext scopeContext = vaadinSession != null ? null : ScopeContext.current();
 
-                if(result == null){
-                    result = provider.get();
-                    scopeMap.put(key, result);
-                }
+            final ScopedInstances scopedInstances = scopeContext != null
+                    ? scopeContext.getVaadinSessionScopedInstances()
+                    : SessionScopeStorage.of(checkNotNull(vaadinSession)).getVaadinSessionScopedInstances(scopeMetrics);
 
-                return result;
-            }
+            return scopedInstances.get(slot, key, creatingProvider, keyMetrics);
         };
     }
 
+    /**
+     * returns the instances of this scope in the given session
+     */
+    ScopedInstances getScopedInstances(VaadinSession vaadinSession) {
+        return SessionScopeStorage.of(vaadinSession).getVaadinSessionScopedInstances(metrics);
+    }
+
     @Override
     public void sessionDestroy(SessionDestroyEvent event) {
-            scopeMapsBySession.remove(event.getSession());
+        SessionScopeStorage.of(event.getSession()).clearVaadinSessionScopedInstances(cleanUp);
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.vaadin.guice.testClasses.RouteTarget;
+import com.vaadin.guice.testClasses.UIScoped1;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BindingWarmUpTest {
+
+    @Test
+    public void bindings_should_be_resolved_without_creating_instances() {
+        final Injector injector = createInjector();
+
+        final BindingWarmUp warmUp = BindingWarmUp.run(injector, List.of(RouteTarget.class, Counted.class));
+
+        assertTrue(warmUp.getFailures().isEmpty());
+        assertNotNull(injector.getAllBindings().get(Key.get(RouteTarget.class)));
+        assertNotNull(injector.getAllBindings().get(Key.get(UIScoped1.class)));
+        assertEquals(0, Counted.INSTANCES.get());
+    }
+
+    @Test
+    public void failed_bindings_should_be_reported() {
+        final BindingWarmUp warmUp = BindingWarmUp.run(createInjector(), List.of(RouteTarget.class, Unresolvable.class));
+
+        assertEquals(1, warmUp.getFailures().size());
+        assertTrue(warmUp.getFailures().containsKey(Unresolvable.class));
+    }
+
+    private static Injector createInjector() {
+        final UIScope uiScope = new UIScope();
+
+        return Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindScope(com.vaadin.guice.annotation.UIScope.class, uiScope);
+            }
+        });
+    }
+
+    public static class Counted {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        public Counted() {
+            INSTANCES.incrementAndGet();
+        }
+    }
+
+    public static class Unresolvable {
+        private Unresolvable() {
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.i18n.I18NProvider;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CachingI18NProviderTest {
+
+    private final CountingI18NProvider counting = new CountingI18NProvider();
+
+    @Test
+    public void translations_should_be_cached_by_locale_key_and_arguments() {
+        final CachingI18NProvider caching = new CachingI18NProvider(counting, 100);
+
+        assertEquals("greeting/en/[Joe]", caching.getTranslation("greeting", Locale.ENGLISH, "Joe"));
+        assertEquals("greeting/en/[Joe]", caching.getTranslation("greeting", Locale.ENGLISH, "Joe"));
+        assertEquals("greeting/en/[Ann]", caching.getTranslation("greeting", Locale.ENGLISH, "Ann"));
+        assertEquals("greeting/de/[Joe]", caching.getTranslation("greeting", Locale.GERMAN, "Joe"));
+        assertEquals("title/en/[]", caching.getTranslation("title", Locale.ENGLISH));
+        assertEquals("title/en/[]", caching.getTranslation("title", Locale.ENGLISH));
+
+        assertEquals(4, counting.translations.get());
+    }
+
+    @Test
+    public void translations_with_other_arguments_should_not_be_cached() {
+        final CachingI18NProvider caching = new CachingI18NProvider(counting, 100);
+        final LocalDate date = LocalDate.of(2020, 1, 1);
+
+        caching.getTranslation("due", Locale.ENGLISH, date);
+        caching.getTranslation("due", Locale.ENGLISH, date);
+
+        assertEquals(2, counting.translations.get());
+    }
+
+    @Test
+    public void translations_with_mutable_numbers_should_not_be_cached() {
+        final CachingI18NProvider caching = new CachingI18NProvider(counting, 100);
+        final AtomicLong count = new AtomicLong(1);
+
+        assertEquals("items/en/[1]", caching.getTranslation("items", Locale.ENGLISH, count));
+
+        count.set(2);
+
+        assertEquals("items/en/[2]", caching.getTranslation("items", Locale.ENGLISH, count));
+        assertEquals(2, counting.translations.get());
+    }
+
+    @Test
+    public void least_recently_used_translations_should_be_evicted() {
+        final CachingI18NProvider caching = new CachingI18NProvider(counting, 1);
+
+        caching.getTranslation("a", Locale.ENGLISH);
+        caching.getTranslation("b", Locale.ENGLISH);
+        caching.getTranslation("a", Locale.ENGLISH);
+
+        assertEquals(3, counting.translations.get());
+    }
+
+    @Test
+    public void warm_up_should_load_formatted_translations_of_all_keys_of_the_provided_locales() {
+        final CachingI18NProvider caching = new CachingI18NProvider(counting, 100);
+
+        caching.warmUp();
+
+        assertEquals(2, counting.translations.get());
+        assertEquals("title/en/[]", caching.getTranslation("title", Locale.ENGLISH));
+        assertEquals("title/de/[]", caching.getTranslation("title", Locale.GERMAN));
+        assertEquals(2, counting.translations.get());
+    }
+
+    @Test
+    public void warm_up_should_skip_failing_translations_and_use_callers_context_class_loader() {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader original = thread.getContextClassLoader();
+        final ClassLoader contextClassLoader = new URLClassLoader(new URL[0], original);
+        final Set<ClassLoader> seen = ConcurrentHashMap.newKeySet();
+
+        final CachingI18NProvider caching = new CachingI18NProvider(new CountingI18NProvider() {
+            @Override
+            public String getTranslation(String key, Locale locale, Object... params) {
+                seen.add(Thread.currentThread().getContextClassLoader());
+
+                if (locale.equals(Locale.GERMAN)) {
+                    throw new MissingResourceException("expected", getClass().getName(), key);
+                }
+
+                return super.getTranslation(key, locale, params);
+            }
+        }, 100);
+
+        thread.setContextClassLoader(contextClassLoader);
+
+        try {
+            caching.warmUp();
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+
+        assertEquals(Set.of(contextClassLoader), seen);
+        assertEquals("title/en/[]", caching.getTranslation("title", Locale.ENGLISH));
+    }
+
+    private static class CountingI18NProvider implements I18NProvider {
+        final AtomicInteger translations = new AtomicInteger();
+
+        @Override
+        public List<Locale> getProvidedLocales() {
+            return List.of(Locale.ENGLISH, Locale.GERMAN);
+        }
+
+        @Override
+        public String getTranslation(String key, Locale locale, Object... params) {
+            translations.incrementAndGet();
+            return key + "/" + locale + "/" + List.of(params);
+        }
+
+        @Override
+        public Map<String, String> getAllTranslations(Locale locale) {
+            return Map.of("title", "title of " + locale);
+        }
+    }
+}
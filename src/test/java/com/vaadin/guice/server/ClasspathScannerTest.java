@@ -0,0 +1,82 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Module;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.guice.nonoverride.NonOverrideModule;
+import com.vaadin.guice.override.OverridingModule;
+import com.vaadin.guice.testClasses.RouteTarget;
+import com.vaadin.guice.testClasses.Target;
+import org.junit.Test;
+import org.reflections.Reflections;
+
+import java.lang.annotation.Annotation;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ClasspathScannerTest {
+
+    private final String[] packages = {"com.vaadin.guice.testClasses", "com.vaadin.guice.override", "com.vaadin.guice.nonoverride", "com.vaadin.guice.server"};
+
+    @Test
+    public void scan_should_find_same_types_as_reflections() {
+        ScanResult scanned = ClasspathScanner.scan(getClass().getClassLoader(), packages);
+
+        ScanResult reflected = ScanResult.of(new Reflections((Object[]) packages));
+
+        for (Class<?> category : ScanResult.CATEGORIES) {
+            assertEquals(category.getName(), reflected.getSubTypesOf(category), scanned.getSubTypesOf(category));
+        }
+
+        for (Class<? extends Annotation> annotation : ScanResult.ANNOTATIONS) {
+            assertEquals(annotation.getName(), reflected.getTypesAnnotatedWith(annotation), scanned.getTypesAnnotatedWith(annotation));
+        }
+    }
+
+    @Test
+    public void types_should_be_sorted_into_categories() {
+        ScanResult scanned = ClasspathScanner.scan(getClass().getClassLoader(), packages);
+
+        assertTrue(scanned.getSubTypesOf(Module.class).contains(OverridingModule.class));
+        assertTrue(scanned.getSubTypesOf(Module.class).contains(NonOverrideModule.class));
+        assertTrue(scanned.getSubTypesOf(UI.class).contains(Target.class));
+        assertTrue(scanned.getSubTypesOf(VaadinServiceInitListener.class).contains(JavaSPIVaadinServiceInitListener.class));
+        assertEquals(Set.of(RouteTarget.class), scanned.getTypesAnnotatedWith(Route.class));
+    }
+
+    @Test
+    public void sibling_packages_with_common_prefix_should_not_be_found() {
+        String[] packages = {"com.vaadin.guice.server", "com.vaadin.guice.testClass"};
+
+        ScanResult scanned = ClasspathScanner.scan(getClass().getClassLoader(), packages);
+
+        assertTrue(scanned.getTypesAnnotatedWith(Route.class).isEmpty());
+        assertFalse(scanned.getSubTypesOf(UI.class).contains(Target.class));
+        assertEquals(ScanResult.of(new Reflections((Object[]) packages)).getTypes(), scanned.getTypes());
+    }
+
+    @Test
+    public void packages_not_scanned_should_not_be_found() {
+        ScanResult scanned = ClasspathScanner.scan(getClass().getClassLoader(), new String[]{"com.vaadin.guice.override"});
+
+        assertEquals(1, scanned.getSubTypesOf(Module.class).size());
+        assertTrue(scanned.getSubTypesOf(UI.class).isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CompactI18NProviderTest {
+
+    private static final Locale AUSTRIAN = Locale.forLanguageTag("de-AT");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private CompactI18NProvider i18NProvider;
+
+    @Before
+    public void setup() throws IOException {
+        final File root = temporaryFolder.newFolder();
+
+        write(root, "i18n/app.properties", "ok=OK", "fallback=Fallback");
+        write(root, "i18n/app_en.properties", "ok=OK", "greeting=Hello {0}", "price=Price: {0,number,#,##0.00}");
+        write(root, "i18n/app_de.properties", "ok=OK", "greeting=Hallo {0}", "price=Preis: {0,number,#,##0.00}", "january=Jänner");
+        write(root, "i18n/app_de_AT.properties", "greeting=Servus {0}");
+
+        i18NProvider = CompactI18NProvider.load(
+                new URLClassLoader(new URL[]{root.toURI().toURL()}, null),
+                "i18n/app",
+                List.of(Locale.ENGLISH, Locale.GERMAN, AUSTRIAN)
+        );
+    }
+
+    @Test
+    public void translations_should_fall_back_to_parent_locales() {
+        assertEquals("Servus {0}", i18NProvider.getTranslation("greeting", AUSTRIAN));
+        assertEquals("Jänner", i18NProvider.getTranslation("january", AUSTRIAN));
+        assertEquals("Fallback", i18NProvider.getTranslation("fallback", AUSTRIAN));
+        assertEquals("Fallback", i18NProvider.getTranslation("fallback", Locale.FRENCH));
+        assertEquals("Hallo {0}", i18NProvider.getTranslation("greeting", Locale.GERMANY));
+    }
+
+    @Test
+    public void arguments_should_be_formatted_in_the_locale() {
+        assertEquals("Servus Joe", i18NProvider.getTranslation("greeting", AUSTRIAN, "Joe"));
+        assertEquals("Price: 1,234.50", i18NProvider.getTranslation("price", Locale.ENGLISH, 1234.5));
+        assertEquals("Preis: 1.234,50", i18NProvider.getTranslation("price", Locale.GERMAN, 1234.5));
+    }
+
+    @Test
+    public void arguments_should_be_formatted_in_the_requested_locale_if_it_falls_back() {
+        final Locale swiss = Locale.forLanguageTag("de-CH");
+        final String expected = new MessageFormat("Preis: {0,number,#,##0.00}", swiss).format(new Object[]{1234.5});
+
+        assertEquals(expected, i18NProvider.getTranslation("price", swiss, 1234.5));
+        assertNotEquals(i18NProvider.getTranslation("price", Locale.GERMAN, 1234.5), expected);
+    }
+
+    @Test
+    public void missing_translations_should_be_marked() {
+        assertEquals("!de: missing", i18NProvider.getTranslation("missing", Locale.GERMAN));
+        assertEquals("", i18NProvider.getTranslation((String) null, Locale.GERMAN));
+    }
+
+    @Test
+    public void equal_translations_should_be_held_once() {
+        assertSame(i18NProvider.getTranslation("ok", Locale.ENGLISH), i18NProvider.getTranslation("ok", Locale.GERMAN));
+    }
+
+    @Test
+    public void all_translations_should_include_those_of_parent_locales() {
+        final Map<String, String> translations = i18NProvider.getAllTranslations(AUSTRIAN);
+
+        assertEquals(5, translations.size());
+        assertEquals("Servus {0}", translations.get("greeting"));
+        assertEquals("Fallback", translations.get("fallback"));
+        assertEquals(List.of(Locale.ENGLISH, Locale.GERMAN, AUSTRIAN), i18NProvider.getProvidedLocales());
+    }
+
+    private static void write(File root, String path, String... lines) throws IOException {
+        final File file = new File(root, path);
+
+        file.getParentFile().mkdirs();
+
+        Files.write(file.toPath(), List.of(lines), StandardCharsets.UTF_8);
+    }
+}
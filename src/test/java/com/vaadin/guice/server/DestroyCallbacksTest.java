@@ -0,0 +1,200 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.SessionDestroyEvent;
+import com.vaadin.flow.server.VaadinService;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.vaadin.guice.server.UIScopeTest.setCurrent;
+import static org.junit.Assert.*;
+
+public class DestroyCallbacksTest {
+
+    private final List<String> closed = new CopyOnWriteArrayList<>();
+    private final List<Thread> closingThreads = new CopyOnWriteArrayList<>();
+    private final List<Class<?>> failures = new CopyOnWriteArrayList<>();
+    private final CountDownLatch timedOut = new CountDownLatch(1);
+
+    private final GuiceVaadinMetrics.ScopeMetrics metrics = new GuiceVaadinMetrics.ScopeMetrics() {
+        @Override
+        public GuiceVaadinMetrics.KeyMetrics forKey(Key<?> key) {
+            return NoMetrics.INSTANCE;
+        }
+
+        @Override
+        public void opened() {
+        }
+
+        @Override
+        public void closed(int instances) {
+        }
+
+        @Override
+        public void closeFailed(Class<?> type) {
+            failures.add(type);
+        }
+
+        @Override
+        public void closeTimedOut() {
+            timedOut.countDown();
+        }
+    };
+
+    private final ScopedInstances.Slots slots = new ScopedInstances.Slots();
+    private final ScopedInstances scopedInstances = new ScopedInstances(metrics);
+    private DestroyCallbacks destroyCallbacks = DestroyCallbacks.DIRECT;
+
+    @After
+    public void tearDown() {
+        destroyCallbacks.close();
+        setCurrent(null, null);
+    }
+
+    @Test
+    public void closeables_should_be_closed_in_reverse_order_off_the_releasing_thread() throws InterruptedException {
+        destroyCallbacks = DestroyCallbacks.create(1, 5_000);
+
+        add("a", new Resource("a"));
+        add("b", new Object());
+        add("c", new Resource("c"));
+
+        destroyCallbacks.release(scopedInstances);
+        destroyCallbacks.close();
+
+        assertEquals(List.of("c", "a"), closed);
+        assertFalse(closingThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void failing_close_should_be_recorded_and_not_stop_the_others() {
+        add("a", new Resource("a"));
+        add("b", (AutoCloseable) () -> {
+            throw new IllegalStateException("expected");
+        });
+
+        destroyCallbacks.release(scopedInstances);
+
+        assertEquals(List.of("a"), closed);
+        assertEquals(1, failures.size());
+    }
+
+    @Test
+    public void hanging_close_should_be_interrupted_after_the_timeout() throws InterruptedException {
+        destroyCallbacks = DestroyCallbacks.create(1, 100);
+
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        add("a", (AutoCloseable) () -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+
+        destroyCallbacks.release(scopedInstances);
+
+        assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void detached_ui_and_destroyed_session_should_close_their_instances() {
+        final VaadinService vaadinService = Mockito.mock(VaadinService.class);
+        final UIScope uiScope = new UIScope();
+        final VaadinSessionScope vaadinSessionScope = new VaadinSessionScope();
+        final ScopeCleanUp cleanUp = ScopeCleanUp.background(0, NoMetrics.INSTANCE, DestroyCallbacks.DIRECT);
+
+        uiScope.setCleanUp(cleanUp);
+        vaadinSessionScope.setCleanUp(cleanUp);
+
+        final Provider<Resource> uiScoped = uiScope.scope(Key.get(Resource.class), () -> new Resource("ui"));
+        final Provider<Resource> sessionScoped = vaadinSessionScope.scope(Key.get(Resource.class), () -> new Resource("session"));
+
+        final GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+        final UI ui = new UI();
+
+        setCurrent(session, ui);
+
+        uiScoped.get();
+        sessionScoped.get();
+
+        ComponentUtil.onComponentDetach(ui);
+
+        assertEquals(List.of("ui"), closed);
+
+        vaadinSessionScope.sessionDestroy(new SessionDestroyEvent(vaadinService, session));
+
+        assertEquals(List.of("ui", "session"), closed);
+    }
+
+    @Test
+    public void instances_released_after_close_should_be_closed_inline() {
+        destroyCallbacks = DestroyCallbacks.create(1, 5_000);
+        destroyCallbacks.close();
+
+        add("a", new Resource("a"));
+
+        destroyCallbacks.release(scopedInstances);
+
+        assertEquals(List.of("a"), closed);
+        assertEquals(List.of(Thread.currentThread()), closingThreads);
+    }
+
+    @Test
+    public void closing_should_be_opt_in() {
+        destroyCallbacks = DestroyCallbacks.NONE;
+
+        add("a", new Resource("a"));
+
+        destroyCallbacks.release(scopedInstances);
+
+        assertTrue(closed.isEmpty());
+    }
+
+    private void add(String name, Object instance) {
+        final Key<Object> key = Key.get(Object.class, Names.named(name));
+
+        scopedInstances.get(slots.of(key), key, () -> instance, NoMetrics.INSTANCE);
+    }
+
+    private final class Resource implements AutoCloseable {
+        final String name;
+
+        Resource(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            closingThreads.add(Thread.currentThread());
+            closed.add(name);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.google.inject.Stage;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EagerSingletonsTest {
+
+    /*
+     * the independent singletons only get past this barrier if they are built at the same time
+     */
+    private static final CyclicBarrier BARRIER = new CyclicBarrier(3);
+
+    private static final List<Class<?>> BUILT = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void independent_singletons_should_be_built_in_parallel() {
+        BARRIER.reset();
+        BUILT.clear();
+
+        Guice.createInjector(Stage.PRODUCTION, new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Pool.class);
+                bind(Cache.class);
+                bind(Client.class);
+            }
+        }, EagerSingletons.parallel());
+
+        assertEquals(3, BUILT.size());
+    }
+
+    @Test
+    public void singletons_should_be_built_after_their_dependencies_and_only_once() {
+        BUILT.clear();
+
+        final Injector injector = Guice.createInjector(Stage.PRODUCTION, new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Dependent.class);
+                bind(Intermediate.class);
+                bind(Dependency.class);
+            }
+        }, EagerSingletons.parallel());
+
+        assertEquals(List.of(Dependency.class, Dependent.class), BUILT);
+        assertSame(injector.getInstance(Dependency.class), injector.getInstance(Dependent.class).dependency);
+    }
+
+    private static void awaitOthers() {
+        try {
+            BARRIER.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("singletons were not built in parallel", e);
+        }
+    }
+
+    @Singleton
+    public static class Pool {
+        public Pool() {
+            awaitOthers();
+            BUILT.add(Pool.class);
+        }
+    }
+
+    @Singleton
+    public static class Cache {
+        public Cache() {
+            awaitOthers();
+            BUILT.add(Cache.class);
+        }
+    }
+
+    @Singleton
+    public static class Client {
+        public Client() {
+            awaitOthers();
+            BUILT.add(Client.class);
+        }
+    }
+
+    @Singleton
+    public static class Dependency {
+        public Dependency() throws InterruptedException {
+            Thread.sleep(100);
+            BUILT.add(Dependency.class);
+        }
+    }
+
+    /*
+     * not a singleton, the dependency of Dependent on Dependency goes through it
+     */
+    public static class Intermediate {
+        final Dependency dependency;
+
+        @Inject
+        public Intermediate(Dependency dependency) {
+            this.dependency = dependency;
+        }
+    }
+
+    @Singleton
+    public static class Dependent {
+        final Dependency dependency;
+
+        @Inject
+        public Dependent(Intermediate intermediate) {
+            this.dependency = intermediate.dependency;
+            BUILT.add(Dependent.class);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static com.vaadin.guice.server.UIScopeTest.setCurrent;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+public class FlightRecorderEventsTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final VaadinService vaadinService = Mockito.mock(VaadinService.class);
+    private final Recording recording = new Recording();
+
+    @After
+    public void tearDown() {
+        setCurrent(null, null);
+        recording.close();
+    }
+
+    @Test
+    public void scoped_instance_creation_should_be_recorded_with_scope_and_key() throws Exception {
+        final Provider<Object> provider = new UIScope().scope(Key.get(Object.class), Object::new);
+
+        setCurrent(new GuiceVaadinSession(vaadinService), new UI());
+
+        recording.enable(ScopedInstanceCreationEvent.class);
+        recording.start();
+
+        provider.get();
+        provider.get();
+
+        final List<RecordedEvent> events = stopAndRead(ScopedInstanceCreationEvent.class);
+
+        assertEquals(1, events.size());
+        assertEquals("UIScope", events.get(0).getString("scope"));
+        assertEquals(Key.get(Object.class).toString(), events.get(0).getString("key"));
+    }
+
+    @Test
+    public void waits_for_other_threads_should_be_recorded_with_key_and_creating_thread() throws Exception {
+        final ScopedInstances scopedInstances = new ScopedInstances(NoMetrics.INSTANCE);
+        final Key<Object> key = Key.get(Object.class);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService creatingThread = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "creating-thread"));
+        final ExecutorService waitingThread = Executors.newSingleThreadExecutor();
+
+        recording.enable(ScopeWaitEvent.class);
+        recording.start();
+
+        try {
+            final Future<Object> creating = creatingThread.submit(() -> scopedInstances.get(0, key, () -> {
+                started.countDown();
+                awaitUninterruptibly(release);
+                return new Object();
+            }, NoMetrics.INSTANCE));
+
+            started.await();
+
+            final Future<Object> waiting = waitingThread.submit(
+                    () -> scopedInstances.get(0, key, Object::new, NoMetrics.INSTANCE)
+            );
+
+            Thread.sleep(50);
+            release.countDown();
+
+            assertSame(creating.get(5, TimeUnit.SECONDS), waiting.get(5, TimeUnit.SECONDS));
+        } finally {
+            creatingThread.shutdownNow();
+            waitingThread.shutdownNow();
+        }
+
+        final List<RecordedEvent> events = stopAndRead(ScopeWaitEvent.class);
+
+        assertEquals(1, events.size());
+        assertEquals(key.toString(), events.get(0).getString("key"));
+        assertEquals("creating-thread", events.get(0).getThread("creatingThread").getJavaName());
+        assertTrue(events.get(0).getDuration().toMillis() > 0);
+    }
+
+    @Test
+    public void instantiations_should_be_recorded_above_threshold() throws Exception {
+        final GuiceVaadinServlet servlet = Mockito.mock(GuiceVaadinServlet.class);
+        final GuiceVaadinServletService service = Mockito.mock(GuiceVaadinServletService.class);
+
+        when(service.getServlet()).thenReturn(servlet);
+        when(servlet.getInjector()).thenReturn(Guice.createInjector());
+        when(servlet.getMetrics()).thenReturn(NoMetrics.INSTANCE);
+
+        final GuiceInstantiator instantiator = new GuiceInstantiator(service);
+
+        recording.enable(InstantiationEvent.class).withThreshold(Duration.ofMillis(20));
+        recording.start();
+
+        instantiator.getOrCreate(Fast.class);
+        instantiator.getOrCreate(Slow.class);
+
+        final List<RecordedEvent> events = stopAndRead(InstantiationEvent.class);
+
+        assertEquals(1, events.size());
+        assertEquals(Slow.class.getName(), events.get(0).getClass("type").getName());
+    }
+
+    @Test
+    public void scan_phases_should_be_recorded_with_packages() throws Exception {
+        recording.enable(ScanEvent.class);
+        recording.start();
+
+        ScanEvent.record("classpath", new String[]{"com.example.a", "com.example.b"}, () -> null);
+
+        final List<RecordedEvent> events = stopAndRead(ScanEvent.class);
+
+        assertEquals(1, events.size());
+        assertEquals("classpath", events.get(0).getString("phase"));
+        assertEquals("com.example.a,com.example.b", events.get(0).getString("packages"));
+    }
+
+    private List<RecordedEvent> stopAndRead(Class<?> eventClass) throws Exception {
+        recording.stop();
+
+        final Path file = temporaryFolder.newFile("recording.jfr").toPath();
+
+        recording.dump(file);
+
+        final String name = eventClass.getAnnotation(jdk.jfr.Name.class).value();
+
+        return RecordingFile.readAllEvents(file)
+                .stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    public static class Fast {
+    }
+
+    public static class Slow {
+        public Slow() throws InterruptedException {
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.fail;
+
+/**
+ * forces garbage collections to find out whether objects have become unreachable
+ */
+final class GarbageCollection {
+
+    private static final int ATTEMPTS = 20;
+
+    private GarbageCollection() {
+    }
+
+    /**
+     * fails if any of the referenced objects is still reachable after repeated garbage collections
+     */
+    static void assertUnreachable(WeakReference<?>... references) {
+        for (int i = 0; i < ATTEMPTS; i++) {
+            if (allCleared(references)) {
+                return;
+            }
+
+            System.gc();
+
+            //allocate some garbage, in case the collector ignored the explicit request
+            final List<byte[]> garbage = new ArrayList<>();
+
+            for (int j = 0; j < 16; j++) {
+                garbage.add(new byte[1 << 20]);
+            }
+
+            garbage.clear();
+        }
+
+        for (WeakReference<?> reference : references) {
+            if (reference.get() != null) {
+                fail(reference.get() + " is still reachable");
+            }
+        }
+    }
+
+    private static boolean allCleared(WeakReference<?>... references) {
+        for (WeakReference<?> reference : references) {
+            if (reference.get() != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -18,16 +18,30 @@ package com.vaadin.guice.server;
 import com.google.inject.*;
 import com.vaadin.flow.component.html.*;
 import com.vaadin.flow.di.*;
+import com.vaadin.flow.i18n.*;
 import com.vaadin.flow.server.*;
 import jakarta.servlet.*;
 import org.junit.*;
 import org.mockito.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.*;
 import java.util.stream.*;
 
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 public class GuiceInstantiatorTest {
 
+    private final GuiceVaadinServlet servlet = Mockito.mock(GuiceVaadinServlet.class);
+    private final GuiceVaadinServletService service = Mockito.mock(GuiceVaadinServletService.class);
+    private final Injector injector = Guice.createInjector();
+    private final JmxMetrics metrics = new JmxMetrics();
+
+    private GuiceInstantiator instantiator;
+
     public static class RouteTarget1 extends Div {
     }
 
@@ -67,4 +81,122 @@ public class GuiceInstantiatorTest {
 
         return servlet;
     }
+
+    @Before
+    public void setup() {
+        when(service.getServlet()).thenReturn(servlet);
+        when(servlet.getInjector()).thenReturn(injector);
+        when(servlet.getMetrics()).thenReturn(metrics);
+
+        instantiator = new GuiceInstantiator(service);
+    }
+
+    @Test
+    public void provider_should_be_resolved_once_per_type() {
+        final Unscoped first = instantiator.getOrCreate(Unscoped.class);
+        final Unscoped second = instantiator.getOrCreate(Unscoped.class);
+
+        assertNotSame(first, second);
+        assertSame(instantiator.getOrCreate(Single.class), instantiator.getOrCreate(Single.class));
+
+        verify(servlet, times(2)).getInjector();
+    }
+
+    @Test
+    public void instantiations_should_be_counted_per_type() {
+        instantiator.getOrCreate(Unscoped.class);
+        instantiator.getOrCreate(Unscoped.class);
+        instantiator.getOrCreate(Single.class);
+
+        assertEquals(Long.valueOf(2), metrics.getInstantiations().get(Unscoped.class.getName()));
+        assertEquals(Long.valueOf(1), metrics.getInstantiations().get(Single.class.getName()));
+    }
+
+    @Test
+    public void i18n_provider_should_be_shared() {
+        when(servlet.getI18NProvider()).thenReturn(Optional.of(CountingI18NProvider.class));
+        when(servlet.getUiScope()).thenReturn(new UIScope());
+        when(servlet.getVaadinSessionScope()).thenReturn(new VaadinSessionScope());
+
+        final Injector injector = Guice.createInjector(new VaadinModule(servlet));
+
+        when(servlet.getInjector()).thenReturn(injector);
+
+        final GuiceInstantiator instantiator = new GuiceInstantiator(service);
+
+        assertSame(instantiator.getI18NProvider(), instantiator.getI18NProvider());
+        assertEquals(1, CountingI18NProvider.instances.get());
+    }
+
+    @Test
+    public void i18n_provider_should_be_null_if_none_is_bound() {
+        assertNull(instantiator.getI18NProvider());
+        assertNull(instantiator.getI18NProvider());
+    }
+
+    @Test
+    public void scoped_i18n_provider_should_keep_its_scope() {
+        when(servlet.getI18NProvider()).thenReturn(Optional.of(SessionScopedI18NProvider.class));
+        when(servlet.getUiScope()).thenReturn(new UIScope());
+        when(servlet.getVaadinSessionScope()).thenReturn(new VaadinSessionScope());
+        when(servlet.getTranslationCacheSize()).thenReturn(100L);
+
+        final Injector injector = Guice.createInjector(Stage.PRODUCTION, new VaadinModule(servlet));
+
+        when(servlet.getInjector()).thenReturn(injector);
+
+        final GuiceInstantiator instantiator = new GuiceInstantiator(service);
+
+        try {
+            VaadinSession.setCurrent(new GuiceVaadinSession(null));
+
+            final I18NProvider first = instantiator.getI18NProvider();
+
+            assertSame(first, instantiator.getI18NProvider());
+
+            VaadinSession.setCurrent(new GuiceVaadinSession(null));
+
+            assertNotSame(first, instantiator.getI18NProvider());
+        } finally {
+            VaadinSession.setCurrent(null);
+        }
+    }
+
+    @com.vaadin.guice.annotation.VaadinSessionScope
+    public static class SessionScopedI18NProvider implements I18NProvider {
+        @Override
+        public List<Locale> getProvidedLocales() {
+            return List.of(Locale.ENGLISH);
+        }
+
+        @Override
+        public String getTranslation(String key, Locale locale, Object... params) {
+            return key;
+        }
+    }
+
+    public static class CountingI18NProvider implements I18NProvider {
+        static final AtomicInteger instances = new AtomicInteger();
+
+        public CountingI18NProvider() {
+            instances.incrementAndGet();
+        }
+
+        @Override
+        public List<Locale> getProvidedLocales() {
+            return List.of(Locale.ENGLISH);
+        }
+
+        @Override
+        public String getTranslation(String key, Locale locale, Object... params) {
+            return key;
+        }
+    }
+
+    public static class Unscoped {
+    }
+
+    @Singleton
+    public static class Single {
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.SessionDestroyEvent;
+import com.vaadin.flow.server.VaadinService;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static com.vaadin.guice.server.UIScopeTest.setCurrent;
+import static org.junit.Assert.*;
+
+public class JmxMetricsTest {
+
+    private final VaadinService vaadinService = Mockito.mock(VaadinService.class);
+    private final JmxMetrics metrics = new JmxMetrics();
+    private final UIScope uiScope = new UIScope();
+    private final VaadinSessionScope vaadinSessionScope = new VaadinSessionScope();
+
+    @After
+    public void tearDown() {
+        setCurrent(null, null);
+        metrics.stop();
+    }
+
+    @Test
+    public void scoped_keys_should_count_hits_and_misses() {
+        uiScope.setMetrics(metrics);
+
+        final Provider<Object> provider = uiScope.scope(Key.get(Object.class), Object::new);
+
+        setCurrent(new GuiceVaadinSession(vaadinService), new UI());
+
+        provider.get();
+        provider.get();
+        provider.get();
+
+        final String key = "UIScope " + Key.get(Object.class);
+
+        assertEquals(Long.valueOf(2), metrics.getScopeHits().get(key));
+        assertEquals(Long.valueOf(1), metrics.getScopeMisses().get(key));
+        assertEquals(1, metrics.getProvisionNanos().get(key).getCount());
+        assertEquals(0, metrics.getScopeWaitNanos().get(key).getCount());
+    }
+
+    @Test
+    public void released_scopes_should_not_count_as_live() {
+        uiScope.setMetrics(metrics);
+        vaadinSessionScope.setMetrics(metrics);
+
+        final Provider<Object> uiScoped = uiScope.scope(Key.get(Object.class), Object::new);
+        final Provider<String> sessionScoped = vaadinSessionScope.scope(Key.get(String.class), () -> "session");
+
+        final GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+        final UI detached = new UI();
+
+        setCurrent(session, detached);
+        uiScoped.get();
+        sessionScoped.get();
+
+        setCurrent(session, new UI());
+        uiScoped.get();
+
+        assertEquals(Map.of("UIScope", 2L, "VaadinSessionScope", 1L), metrics.getLiveScopes());
+        assertEquals(Map.of("UIScope", 2L, "VaadinSessionScope", 1L), metrics.getLiveScopedInstances());
+
+        ComponentUtil.onComponentDetach(detached);
+
+        assertEquals(Long.valueOf(1), metrics.getLiveScopedInstances().get("UIScope"));
+
+        uiScope.sessionDestroy(new SessionDestroyEvent(vaadinService, session));
+        vaadinSessionScope.sessionDestroy(new SessionDestroyEvent(vaadinService, session));
+
+        assertEquals(Map.of("UIScope", 0L, "VaadinSessionScope", 0L), metrics.getLiveScopes());
+        assertEquals(Map.of("UIScope", 0L, "VaadinSessionScope", 0L), metrics.getLiveScopedInstances());
+    }
+
+    @Test
+    public void metrics_should_be_exposed_via_jmx_until_stopped() throws Exception {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName("com.vaadin.guice:type=Metrics,servlet=" + ObjectName.quote("test-servlet"));
+
+        metrics.forInstantiatedType(String.class).instantiated();
+        metrics.start("test-servlet");
+
+        final TabularData instantiations = (TabularData) mBeanServer.getAttribute(objectName, "Instantiations");
+
+        assertEquals(1, instantiations.size());
+        assertNotNull(mBeanServer.getAttribute(objectName, "ProvisionNanos"));
+
+        metrics.stop();
+
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test
+    public void histogram_percentiles_should_be_bucket_bounds() {
+        final Histogram histogram = new Histogram();
+
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_500);
+        }
+
+        histogram.record(1_000_000);
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.getCount());
+        assertEquals(2_048, snapshot.getP50());
+        assertEquals(2_048, snapshot.getP99());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals((99 * 1_500 + 1_000_000) / 100, snapshot.getMean());
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Stage;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.name.Names;
+import com.google.inject.spi.Elements;
+import com.vaadin.guice.annotation.OverrideBindings;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static com.google.inject.util.Modules.override;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class RecordedModulesTest {
+
+    private static final int MODULES = 32;
+
+    private final List<Supplier<? extends Module>> moduleFactories = new ArrayList<>();
+
+    {
+        for (int i = 0; i < MODULES; i++) {
+            final int index = i;
+
+            moduleFactories.add(() -> new ContributingModule(index));
+        }
+
+        moduleFactories.add(Overriding::new);
+        moduleFactories.add(Overridden::new);
+    }
+
+    @Test
+    public void parallel_recording_should_match_sequential_loading() {
+        final List<String> sequential = describe(sequential());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(sequential, describe(RecordedModules.combine(Stage.DEVELOPMENT, moduleFactories, StartupReport.DISABLED)));
+        }
+    }
+
+    @Test
+    public void injector_should_see_same_bindings_in_same_order() {
+        final Injector sequential = Guice.createInjector(sequential());
+        final Injector parallel = Guice.createInjector(RecordedModules.combine(Stage.DEVELOPMENT, moduleFactories, StartupReport.DISABLED));
+
+        final Key<Set<String>> contributions = Key.get(new TypeLiteral<Set<String>>() {
+        });
+
+        assertEquals(new ArrayList<>(sequential.getInstance(contributions)), new ArrayList<>(parallel.getInstance(contributions)));
+        assertEquals("overriding", parallel.getInstance(Key.get(String.class, Names.named("value"))));
+        assertEquals(7, (int) parallel.getInstance(Key.get(Integer.class, Names.named("constant-7"))));
+    }
+
+    @Test
+    public void modules_should_be_created_with_callers_context_class_loader() {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader original = thread.getContextClassLoader();
+        final ClassLoader contextClassLoader = new URLClassLoader(new URL[0], original);
+        final Set<ClassLoader> seen = ConcurrentHashMap.newKeySet();
+
+        final List<Supplier<? extends Module>> recordingFactories = moduleFactories
+                .stream()
+                .<Supplier<? extends Module>>map(moduleFactory -> () -> {
+                    seen.add(Thread.currentThread().getContextClassLoader());
+                    return moduleFactory.get();
+                })
+                .collect(toList());
+
+        thread.setContextClassLoader(contextClassLoader);
+
+        try {
+            RecordedModules.combine(Stage.DEVELOPMENT, recordingFactories, StartupReport.DISABLED);
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+
+        assertEquals(Set.of(contextClassLoader), seen);
+    }
+
+    private Module sequential() {
+        final List<Module> nonOverrideModules = new ArrayList<>();
+        final List<Module> overrideModules = new ArrayList<>();
+
+        for (Supplier<? extends Module> moduleFactory : moduleFactories) {
+            final Module module = moduleFactory.get();
+
+            if (module.getClass().isAnnotationPresent(OverrideBindings.class)) {
+                overrideModules.add(module);
+            } else {
+                nonOverrideModules.add(module);
+            }
+        }
+
+        return override(nonOverrideModules).with(overrideModules);
+    }
+
+    /*
+     * the elements of a multibinder are keyed by a globally unique id, which differs between recordings
+     */
+    private static List<String> describe(Module module) {
+        return Elements
+                .getElements(module)
+                .stream()
+                .map(element -> element.toString().replaceAll("uniqueId=\\d+", "uniqueId"))
+                .collect(toList());
+    }
+
+    static class ContributingModule extends AbstractModule {
+        private final int index;
+
+        ContributingModule(int index) {
+            this.index = index;
+        }
+
+        @Override
+        protected void configure() {
+            Multibinder.newSetBinder(binder(), String.class).addBinding().toInstance("contribution-" + index);
+            bindConstant().annotatedWith(Names.named("constant-" + index)).to(index);
+        }
+    }
+
+    static class Overridden extends AbstractModule {
+        @Override
+        protected void configure() {
+            bindConstant().annotatedWith(Names.named("value")).to("overridden");
+        }
+    }
+
+    @OverrideBindings
+    static class Overriding extends AbstractModule {
+        @Override
+        protected void configure() {
+            bindConstant().annotatedWith(Names.named("value")).to("overriding");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.guice.annotation.PathPrefix;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+public class RequestHandlerIndexTest {
+
+    private final List<String> offered = new ArrayList<>();
+
+    private final RequestHandler dispatcher = RequestHandlerIndex
+            .of(List.of(Api.class, Orders.class, Fallback.class, Root.class))
+            .dispatcher(new RequestHandler[]{
+                    new Recording("api", false),
+                    new Recording("orders", true),
+                    new Recording("fallback", false),
+                    new Recording("root", false)
+            });
+
+    @Test
+    public void requests_should_only_be_offered_to_handlers_with_a_matching_prefix() throws Exception {
+        assertTrue(handle("/api/orders/42"));
+        assertEquals(List.of("orders"), offered);
+    }
+
+    @Test
+    public void prefixes_should_match_whole_segments() throws Exception {
+        assertFalse(handle("/apis"));
+        assertEquals(List.of("fallback", "root"), offered);
+
+        offered.clear();
+
+        assertFalse(handle("/api"));
+        assertEquals(List.of("api", "fallback", "root"), offered);
+    }
+
+    @Test
+    public void handlers_without_prefix_should_be_offered_every_request() throws Exception {
+        assertFalse(handle("/api/customers"));
+        assertEquals(List.of("api", "fallback", "root"), offered);
+
+        offered.clear();
+
+        assertFalse(handle(null));
+        assertEquals(List.of("fallback", "root"), offered);
+    }
+
+    @Test
+    public void handler_should_be_offered_a_request_once() throws Exception {
+        final RequestHandler nested = RequestHandlerIndex
+                .of(List.of(Nested.class))
+                .dispatcher(new RequestHandler[]{new Recording("nested", false)});
+
+        final VaadinRequest request = Mockito.mock(VaadinRequest.class);
+
+        when(request.getPathInfo()).thenReturn("/files/images/logo.png");
+
+        assertFalse(nested.handleRequest(null, request, null));
+        assertEquals(List.of("nested"), offered);
+    }
+
+    private boolean handle(String path) throws Exception {
+        final VaadinRequest request = Mockito.mock(VaadinRequest.class);
+
+        when(request.getPathInfo()).thenReturn(path);
+
+        return dispatcher.handleRequest(null, request, null);
+    }
+
+    @PathPrefix("/api/")
+    private abstract static class Api implements RequestHandler {
+    }
+
+    @PathPrefix({"/api/orders", "/orders"})
+    private abstract static class Orders implements RequestHandler {
+    }
+
+    private abstract static class Fallback implements RequestHandler {
+    }
+
+    @PathPrefix("/")
+    private abstract static class Root implements RequestHandler {
+    }
+
+    @PathPrefix({"/files", "/files/images"})
+    private abstract static class Nested implements RequestHandler {
+    }
+
+    private final class Recording implements RequestHandler {
+        private final String name;
+        private final boolean handles;
+
+        Recording(String name, boolean handles) {
+            this.name = name;
+            this.handles = handles;
+        }
+
+        @Override
+        public boolean handleRequest(VaadinSession session, VaadinRequest request, VaadinResponse response) {
+            offered.add(name);
+            return handles;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.vaadin.flow.server.RequestHandler;
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.guice.annotation.PathPrefix;
+import com.vaadin.guice.annotation.SharedRequestHandler;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class RequestHandlerRegistrationTest {
+
+    private final Injector injector = Guice.createInjector();
+
+    @Test
+    public void shared_handlers_should_be_registered_once_with_the_service() {
+        final RequestHandlerRegistration registration = RequestHandlerRegistration.of(
+                injector,
+                Set.of(SingletonHandler.class, MarkedHandler.class, StatefulHandler.class),
+                true
+        );
+
+        final ServiceInitEvent event = new ServiceInitEvent(Mockito.mock(VaadinService.class));
+
+        registration.serviceInit(event);
+
+        assertEquals(1, event.getAddedRequestHandlers().count());
+        assertEquals(List.of(StatefulHandler.class), handlerTypes(registration));
+    }
+
+    @Test
+    public void without_sharing_every_session_should_get_its_own_handlers() {
+        final RequestHandlerRegistration registration = RequestHandlerRegistration.of(
+                injector,
+                Set.of(MarkedHandler.class, StatefulHandler.class),
+                false
+        );
+
+        final ServiceInitEvent event = new ServiceInitEvent(Mockito.mock(VaadinService.class));
+
+        registration.serviceInit(event);
+
+        assertEquals(0, event.getAddedRequestHandlers().count());
+        assertEquals(List.of(StatefulHandler.class, MarkedHandler.class), handlerTypes(registration));
+
+        final GuiceVaadinSession first = new GuiceVaadinSession(null);
+        final GuiceVaadinSession second = new GuiceVaadinSession(null);
+
+        registration.sessionInit(first);
+        registration.sessionInit(second);
+
+        assertNotSame(first.getRequestHandlers().iterator().next(), second.getRequestHandlers().iterator().next());
+    }
+
+    @Test
+    public void handlers_with_prefixes_should_be_added_as_one_handler() {
+        final RequestHandlerRegistration registration = RequestHandlerRegistration.of(
+                injector,
+                Set.of(ApiHandler.class, DownloadHandler.class, StatefulHandler.class),
+                false
+        );
+
+        final List<Class<?>> types = handlerTypes(registration);
+
+        assertEquals(2, types.size());
+        assertTrue(types.contains(StatefulHandler.class));
+    }
+
+    private static List<Class<?>> handlerTypes(RequestHandlerRegistration registration) {
+        final GuiceVaadinSession session = new GuiceVaadinSession(null);
+
+        registration.sessionInit(session);
+
+        return new ArrayList<>(session.getRequestHandlers()).stream().map(Object::getClass).collect(toList());
+    }
+
+    public abstract static class TestHandler implements RequestHandler {
+        @Override
+        public boolean handleRequest(VaadinSession session, VaadinRequest request, VaadinResponse response) {
+            return false;
+        }
+    }
+
+    @Singleton
+    public static class SingletonHandler extends TestHandler {
+    }
+
+    @SharedRequestHandler
+    public static class MarkedHandler extends TestHandler {
+    }
+
+    public static class StatefulHandler extends TestHandler {
+    }
+
+    @PathPrefix("/api")
+    public static class ApiHandler extends TestHandler {
+    }
+
+    @PathPrefix("/download")
+    public static class DownloadHandler extends TestHandler {
+    }
+}
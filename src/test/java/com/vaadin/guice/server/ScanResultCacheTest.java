@@ -0,0 +1,89 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.guice.testClasses.Target;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ScanResultCacheTest {
+
+    private final String[] packages = {"com.vaadin.guice.testClasses"};
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File classpathEntry;
+    private ClassLoader classLoader;
+    private ScanResultCache scanResultCache;
+    private final AtomicInteger scans = new AtomicInteger();
+
+    @Before
+    public void setup() throws IOException {
+        classpathEntry = temporaryFolder.newFolder();
+        Files.writeString(classpathEntry.toPath().resolve("some.properties"), "a=b");
+        classLoader = new URLClassLoader(new URL[]{classpathEntry.toURI().toURL()}, getClass().getClassLoader());
+        scanResultCache = new ScanResultCache(temporaryFolder.newFolder().toPath().resolve("cache"));
+    }
+
+    @Test
+    public void unchanged_classpath_should_not_be_scanned_again() {
+        ScanResult first = scanResultCache.get(classLoader, packages, this::scan);
+        ScanResult second = scanResultCache.get(classLoader, packages, this::scan);
+
+        assertEquals(1, scans.get());
+        assertEquals(first.getSubTypesOf(UI.class), second.getSubTypesOf(UI.class));
+        assertTrue(second.getSubTypesOf(UI.class).contains(Target.class));
+    }
+
+    @Test
+    public void changed_classpath_should_be_scanned_again() throws IOException {
+        scanResultCache.get(classLoader, packages, this::scan);
+
+        Path file = classpathEntry.toPath().resolve("some.properties");
+        Files.writeString(file, "a=bc");
+
+        scanResultCache.get(classLoader, packages, this::scan);
+
+        assertEquals(2, scans.get());
+    }
+
+    @Test
+    public void other_packages_should_not_share_a_cache() {
+        scanResultCache.get(classLoader, packages, this::scan);
+        scanResultCache.get(classLoader, new String[]{"com.vaadin.guice.override"}, this::scan);
+
+        assertEquals(2, scans.get());
+    }
+
+    private ScanResult scan() {
+        scans.incrementAndGet();
+        return ClasspathScanner.scan(classLoader, packages);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ScopeCleanUpTest {
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private final Map<ScopedInstances, Thread> releasedBy = new ConcurrentHashMap<>();
+    private final AtomicInteger batchedInstances = new AtomicInteger();
+    private final AtomicInteger lastQueueDepth = new AtomicInteger(-1);
+
+    private final GuiceVaadinMetrics metrics = new GuiceVaadinMetrics() {
+        @Override
+        public ScopeMetrics forScope(String scope) {
+            return NoMetrics.INSTANCE;
+        }
+
+        @Override
+        public TypeMetrics forInstantiatedType(Class<?> type) {
+            return NoMetrics.INSTANCE;
+        }
+
+        @Override
+        public void cleanedUp(int released, int queued) {
+            batchedInstances.addAndGet(released);
+            lastQueueDepth.set(queued);
+        }
+    };
+
+    private ScopeCleanUp cleanUp = ScopeCleanUp.INLINE;
+
+    @After
+    public void tearDown() {
+        unblock.countDown();
+        cleanUp.close();
+    }
+
+    @Test
+    public void inline_clean_up_should_release_in_calling_thread() {
+        final ScopedInstances instances = instances(false);
+
+        ScopeCleanUp.INLINE.release(instances);
+
+        assertSame(Thread.currentThread(), releasedBy.get(instances));
+    }
+
+    @Test
+    public void background_clean_up_should_release_in_batches_and_report_queue_depth() throws InterruptedException {
+        cleanUp = ScopeCleanUp.background(1000, metrics, DestroyCallbacks.DIRECT);
+
+        final ScopedInstances blocking = instances(true);
+
+        cleanUp.release(blocking);
+
+        awaitQueueDepth(0);
+
+        for (int i = 0; i < 500; i++) {
+            cleanUp.release(instances(false));
+        }
+
+        assertEquals(500, cleanUp.getQueueDepth());
+
+        unblock.countDown();
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (batchedInstances.get() < 501 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(501, batchedInstances.get());
+        assertEquals(501, releasedBy.size());
+        assertEquals(0, lastQueueDepth.get());
+        assertFalse(releasedBy.containsValue(Thread.currentThread()));
+    }
+
+    @Test
+    public void full_queue_should_release_in_calling_thread() {
+        cleanUp = ScopeCleanUp.background(1, metrics, DestroyCallbacks.DIRECT);
+
+        cleanUp.release(instances(true));
+
+        final ScopedInstances queued = instances(false);
+        final ScopedInstances overflowing = instances(false);
+
+        awaitQueueDepth(0);
+
+        cleanUp.release(queued);
+        cleanUp.release(overflowing);
+
+        assertFalse(releasedBy.containsKey(queued));
+        assertSame(Thread.currentThread(), releasedBy.get(overflowing));
+    }
+
+    @Test
+    public void close_should_release_queued_instances() {
+        cleanUp = ScopeCleanUp.background(10, metrics, DestroyCallbacks.DIRECT);
+
+        cleanUp.release(instances(true));
+
+        awaitQueueDepth(0);
+
+        final ScopedInstances queued = instances(false);
+
+        cleanUp.release(queued);
+        unblock.countDown();
+        cleanUp.close();
+
+        assertTrue(releasedBy.containsKey(queued));
+        assertEquals(0, cleanUp.getQueueDepth());
+    }
+
+    @Test
+    public void close_should_close_all_queued_instances_while_a_batch_is_running() throws InterruptedException {
+        cleanUp = ScopeCleanUp.background(1000, metrics, DestroyCallbacks.DIRECT);
+
+        final AtomicInteger closed = new AtomicInteger();
+        final CountDownLatch closing = new CountDownLatch(1);
+
+        cleanUp.release(closeable(() -> {
+            closing.countDown();
+            Thread.sleep(200);
+            closed.incrementAndGet();
+        }));
+
+        assertTrue(closing.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 100; i++) {
+            cleanUp.release(closeable(closed::incrementAndGet));
+        }
+
+        cleanUp.close();
+
+        assertEquals(101, closed.get());
+        assertEquals(0, cleanUp.getQueueDepth());
+    }
+
+    private ScopedInstances closeable(AutoCloseable closeable) {
+        final ScopedInstances instances = new ScopedInstances(NoMetrics.INSTANCE);
+        final Key<AutoCloseable> key = Key.get(AutoCloseable.class);
+
+        instances.get(new ScopedInstances.Slots().of(key), key, () -> closeable, NoMetrics.INSTANCE);
+
+        return instances;
+    }
+
+    /*
+     * blocking instances keep the background thread busy until the test unblocks it
+     */
+    private ScopedInstances instances(boolean blocking) {
+        final ScopedInstances[] instances = new ScopedInstances[1];
+
+        instances[0] = new ScopedInstances(new GuiceVaadinMetrics.ScopeMetrics() {
+            @Override
+            public GuiceVaadinMetrics.KeyMetrics forKey(Key<?> key) {
+                return NoMetrics.INSTANCE;
+            }
+
+            @Override
+            public void opened() {
+            }
+
+            @Override
+            public void closed(int count) {
+                releasedBy.put(instances[0], Thread.currentThread());
+
+                if (blocking) {
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+
+        return instances[0];
+    }
+
+    /*
+     * waits for the background thread to take the first instances off the queue
+     */
+    private void awaitQueueDepth(int depth) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (releasedBy.isEmpty() || cleanUp.getQueueDepth() != depth) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.SessionDestroyEvent;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.lang.ref.WeakReference;
+
+import static com.vaadin.guice.server.GarbageCollection.assertUnreachable;
+import static com.vaadin.guice.server.UIScopeTest.setCurrent;
+import static org.junit.Assert.assertSame;
+
+public class ScopeLeakTest {
+
+    private final VaadinService vaadinService = Mockito.mock(VaadinService.class);
+    private final UIScope uiScope = new UIScope();
+    private final VaadinSessionScope vaadinSessionScope = new VaadinSessionScope();
+
+    /*
+     * like a component, the scoped instance references its UI
+     */
+    private final Provider<Object> uiScoped = uiScope.scope(Key.get(Object.class), () -> new UIReference(UI.getCurrent()));
+    private final Provider<Object> sessionScoped = vaadinSessionScope.scope(Key.get(Object.class), Object::new);
+
+    @After
+    public void tearDown() {
+        setCurrent(null, null);
+    }
+
+    @Test
+    public void detached_ui_should_be_released_while_session_is_alive() {
+        final GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+        UI ui = new UI();
+
+        setCurrent(session, ui);
+
+        final WeakReference<Object> instance = new WeakReference<>(uiScoped.get());
+
+        ComponentUtil.onComponentDetach(ui);
+        setCurrent(session, null);
+
+        final WeakReference<UI> detachedUI = new WeakReference<>(ui);
+
+        ui = null;
+
+        assertUnreachable(detachedUI, instance);
+    }
+
+    @Test
+    public void attached_ui_should_keep_its_instances() {
+        final GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+        final UI detached = new UI();
+        final UI attached = new UI();
+
+        setCurrent(session, attached);
+
+        final Object instance = uiScoped.get();
+
+        setCurrent(session, detached);
+
+        uiScoped.get();
+
+        ComponentUtil.onComponentDetach(detached);
+
+        setCurrent(session, attached);
+
+        assertSame(instance, uiScoped.get());
+    }
+
+    @Test
+    public void destroyed_session_should_release_its_instances() {
+        GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+        UI ui = new UI();
+
+        setCurrent(session, ui);
+
+        final WeakReference<Object> uiInstance = new WeakReference<>(uiScoped.get());
+        final WeakReference<Object> sessionInstance = new WeakReference<>(sessionScoped.get());
+
+        uiScope.sessionDestroy(new SessionDestroyEvent(vaadinService, session));
+        vaadinSessionScope.sessionDestroy(new SessionDestroyEvent(vaadinService, session));
+
+        setCurrent(null, null);
+
+        final WeakReference<VaadinSession> destroyedSession = new WeakReference<>(session);
+        final WeakReference<UI> closedUI = new WeakReference<>(ui);
+
+        session = null;
+        ui = null;
+
+        assertUnreachable(destroyedSession, closedUI, uiInstance, sessionInstance);
+    }
+
+    private static final class UIReference {
+        final UI ui;
+
+        UIReference(UI ui) {
+            this.ui = ui;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.vaadin.guice.server.UIScopeTest.setCurrent;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+public class ScopedExecutorServiceTest {
+
+    private final VaadinService vaadinService = Mockito.mock(VaadinService.class);
+    private final UIScope uiScope = new UIScope();
+    private final VaadinSessionScope vaadinSessionScope = new VaadinSessionScope();
+    private final Provider<Object> uiScoped = uiScope.scope(Key.get(Object.class), Object::new);
+    private final Provider<Object> sessionScoped = vaadinSessionScope.scope(Key.get(Object.class), Object::new);
+    private final ScopedExecutorService executorService = ScopedExecutorService.create(1, uiScope, vaadinSessionScope);
+    private final GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+    private final UI ui = new UI();
+
+    @After
+    public void tearDown() {
+        setCurrent(null, null);
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void tasks_should_see_the_instances_of_the_submitting_ui_and_session() throws Exception {
+        setCurrent(session, ui);
+
+        final Object uiInstance = uiScoped.get();
+        final Object sessionInstance = sessionScoped.get();
+
+        final Object[] instances = executorService.submit(() -> new Object[]{
+                uiScoped.get(),
+                sessionScoped.get(),
+                UI.getCurrent(),
+                VaadinSession.getCurrent()
+        }).get(5, TimeUnit.SECONDS);
+
+        assertSame(uiInstance, instances[0]);
+        assertSame(sessionInstance, instances[1]);
+        assertNull(instances[2]);
+        assertNull(instances[3]);
+    }
+
+    @Test
+    public void instances_created_by_tasks_should_be_seen_by_the_ui() throws Exception {
+        setCurrent(session, ui);
+
+        final Object instance = executorService.submit(uiScoped::get).get(5, TimeUnit.SECONDS);
+
+        assertSame(instance, uiScoped.get());
+    }
+
+    @Test
+    public void tasks_submitted_by_tasks_should_run_in_the_same_context() throws Exception {
+        setCurrent(session, ui);
+
+        final Object instance = uiScoped.get();
+
+        final Object nested = executorService
+                .submit(() -> executorService.submit(uiScoped::get))
+                .get(5, TimeUnit.SECONDS)
+                .get(5, TimeUnit.SECONDS);
+
+        assertSame(instance, nested);
+    }
+
+    @Test
+    public void ui_scoped_lookup_should_fail_without_a_ui() throws Exception {
+        setCurrent(session, null);
+
+        final Object sessionInstance = sessionScoped.get();
+
+        assertSame(sessionInstance, executorService.submit(sessionScoped::get).get(5, TimeUnit.SECONDS));
+
+        try {
+            executorService.submit(uiScoped::get).get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void context_should_not_outlive_its_task() throws Exception {
+        setCurrent(session, ui);
+
+        executorService.submit(uiScoped::get).get(5, TimeUnit.SECONDS);
+
+        setCurrent(null, null);
+
+        //the pool has a single thread, so this task runs in the thread of the previous one
+        assertNull(executorService.submit(ScopeContext::current).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void access_to_another_ui_in_a_task_should_see_the_instances_of_that_ui() throws Exception {
+        final UI otherUI = new UI();
+
+        setCurrent(session, otherUI);
+
+        final Object otherInstance = uiScoped.get();
+
+        setCurrent(session, ui);
+
+        final Object instance = uiScoped.get();
+
+        //UI#access sets the accessed UI and its session as current
+        final Object accessed = executorService.submit(() -> {
+            setCurrent(session, otherUI);
+
+            try {
+                return uiScoped.get();
+            } finally {
+                setCurrent(null, null);
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        assertSame(otherInstance, accessed);
+        assertNotSame(instance, accessed);
+    }
+
+    @Test
+    public void access_in_a_task_submitted_outside_of_vaadin_should_see_the_accessed_ui() throws Exception {
+        setCurrent(session, ui);
+
+        final Object instance = uiScoped.get();
+
+        setCurrent(null, null);
+
+        final Object accessed = executorService.submit(() -> {
+            setCurrent(session, ui);
+
+            try {
+                return uiScoped.get();
+            } finally {
+                setCurrent(null, null);
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        assertSame(instance, accessed);
+    }
+
+    @Test
+    public void executor_should_only_be_bound_if_configured() {
+        final GuiceVaadinServlet servlet = Mockito.mock(GuiceVaadinServlet.class);
+
+        when(servlet.getUiScope()).thenReturn(uiScope);
+        when(servlet.getVaadinSessionScope()).thenReturn(vaadinSessionScope);
+
+        assertNull(Guice.createInjector(new VaadinModule(servlet)).getExistingBinding(Key.get(ScopedExecutorService.class)));
+
+        when(servlet.getScopedExecutorService()).thenReturn(Optional.of(executorService));
+
+        assertSame(executorService, Guice.createInjector(new VaadinModule(servlet)).getInstance(ScopedExecutorService.class));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ScopedInstancesTest {
+
+    private final Key<Object> a = Key.get(Object.class, Names.named("a"));
+    private final Key<Object> b = Key.get(Object.class, Names.named("b"));
+    private final ScopedInstances.Slots slots = new ScopedInstances.Slots();
+    private final ScopedInstances scopedInstances = new ScopedInstances(NoMetrics.INSTANCE);
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void slow_creation_should_not_block_other_keys() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Future<Object> slow = executorService.submit(() -> get(a, () -> {
+            await(release);
+            return new Object();
+        }));
+
+        final Future<Object> fast = executorService.submit(() -> get(b, Object::new));
+
+        assertNotNull(fast.get(5, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+
+        release.countDown();
+
+        assertSame(slow.get(5, TimeUnit.SECONDS), get(a, Object::new));
+    }
+
+    @Test
+    public void waiting_thread_should_get_instance_of_creating_thread() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger created = new AtomicInteger();
+
+        final Future<Object> first = executorService.submit(() -> get(a, () -> {
+            created.incrementAndGet();
+            started.countDown();
+            await(release);
+            return new Object();
+        }));
+
+        started.await();
+
+        final Future<Object> second = executorService.submit(() -> get(a, () -> {
+            created.incrementAndGet();
+            return new Object();
+        }));
+
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void keys_should_get_distinct_slots() {
+        final int keys = 100;
+        final Object[] instances = new Object[keys];
+
+        for (int i = 0; i < keys; i++) {
+            final Key<Object> key = Key.get(Object.class, Names.named(String.valueOf(i)));
+
+            instances[i] = get(key, Object::new);
+        }
+
+        for (int i = 0; i < keys; i++) {
+            final Key<Object> key = Key.get(Object.class, Names.named(String.valueOf(i)));
+
+            assertSame(instances[i], get(key, Object::new));
+        }
+    }
+
+    @Test
+    public void failed_creation_should_be_retried() {
+        try {
+            get(a, () -> {
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+            //expected
+        }
+
+        assertTrue(scopedInstances.isEmpty());
+        assertNotNull(get(a, Object::new));
+    }
+
+    @Test
+    public void cyclic_creation_across_threads_should_fail_instead_of_deadlocking() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+
+        final Future<Object> first = executorService.submit(() -> get(a, () -> {
+            bothStarted.countDown();
+            await(bothStarted);
+            return get(b, Object::new);
+        }));
+
+        final Future<Object> second = executorService.submit(() -> get(b, () -> {
+            bothStarted.countDown();
+            await(bothStarted);
+            return get(a, Object::new);
+        }));
+
+        int failures = 0;
+
+        for (Future<Object> future : List.of(first, second)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+                failures++;
+            }
+        }
+
+        assertTrue(failures > 0);
+    }
+
+    private <T> T get(Key<T> key, Provider<T> provider) {
+        return scopedInstances.get(slots.of(key), key, provider, NoMetrics.INSTANCE);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
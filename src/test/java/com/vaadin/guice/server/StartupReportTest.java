@@ -0,0 +1,100 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class StartupReportTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void report_should_contain_phases_and_slowest_provisions() throws Exception {
+        final Path file = temporaryFolder.getRoot().toPath().resolve("reports/startup.json");
+
+        final StartupReport startupReport = StartupReport.to(file);
+
+        final Injector injector = startupReport.time("createInjector", () -> Guice.createInjector(startupReport.provisionTimer()));
+
+        injector.getInstance(Slow.class);
+
+        startupReport.finish();
+
+        final String json = new String(Files.readAllBytes(file), "UTF-8");
+
+        assertTrue(json.contains("\"name\": \"createInjector\""));
+        assertTrue(json.contains("\"name\": \"Key[type=com.vaadin.guice.server.StartupReportTest$Slow, annotation=[none]]\""));
+        assertTrue(json.startsWith("{") && json.trim().endsWith("}"));
+    }
+
+    @Test
+    public void provisions_after_finish_should_not_be_recorded() throws Exception {
+        final Path file = temporaryFolder.getRoot().toPath().resolve("startup.json");
+
+        final StartupReport startupReport = StartupReport.to(file);
+
+        final Injector injector = Guice.createInjector(startupReport.provisionTimer());
+
+        startupReport.finish();
+
+        injector.getInstance(Slow.class);
+
+        assertFalse(new String(Files.readAllBytes(file), "UTF-8").contains("Slow"));
+    }
+
+    @Test
+    public void finish_should_release_the_recorded_provisions() throws Exception {
+        final Path file = temporaryFolder.getRoot().toPath().resolve("startup.json");
+
+        final StartupReport startupReport = StartupReport.to(file);
+
+        final Injector injector = Guice.createInjector(startupReport.provisionTimer());
+
+        injector.getInstance(Slow.class);
+
+        startupReport.finish();
+
+        assertTrue(new String(Files.readAllBytes(file), "UTF-8").contains("Slow"));
+
+        startupReport.finish();
+
+        assertFalse(new String(Files.readAllBytes(file), "UTF-8").contains("Slow"));
+    }
+
+    @Test
+    public void disabled_report_should_only_run_phases() {
+        assertFalse(StartupReport.DISABLED.isEnabled());
+        assertEquals("result", StartupReport.DISABLED.time("phase", () -> "result"));
+
+        StartupReport.DISABLED.finish();
+    }
+
+    public static class Slow {
+        public Slow() throws InterruptedException {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Module;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.guice.override.OverridingModule;
+import com.vaadin.guice.testClasses.Target;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TypeIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void no_index_should_yield_empty_result() throws IOException {
+        ClassLoader classLoader = classLoaderFor(temporaryFolder.newFolder());
+
+        assertFalse(TypeIndex.load(classLoader, new String[]{"com.vaadin.guice"}).isPresent());
+    }
+
+    @Test
+    public void indexed_types_should_be_sorted_into_categories() throws IOException {
+        ClassLoader classLoader = classLoaderWithIndex(
+                "com.vaadin.guice.override.OverridingModule=com.google.inject.Module",
+                "com.vaadin.guice.testClasses.Target=com.vaadin.flow.component.UI"
+        );
+
+        Optional<ScanResult> scanResult = TypeIndex.load(classLoader, new String[]{"com.vaadin.guice"});
+
+        assertTrue(scanResult.isPresent());
+        assertEquals(1, scanResult.get().getSubTypesOf(Module.class).size());
+        assertTrue(scanResult.get().getSubTypesOf(Module.class).contains(OverridingModule.class));
+        assertTrue(scanResult.get().getSubTypesOf(UI.class).contains(Target.class));
+        assertTrue(scanResult.get().getSubTypesOf(VaadinServiceInitListener.class).isEmpty());
+    }
+
+    @Test
+    public void types_outside_of_packages_to_scan_should_be_ignored() throws IOException {
+        ClassLoader classLoader = classLoaderWithIndex(
+                "com.vaadin.guice.override.OverridingModule=com.google.inject.Module",
+                "com.vaadin.guice.testClasses.Target=com.vaadin.flow.component.UI"
+        );
+
+        ScanResult scanResult = TypeIndex.load(classLoader, new String[]{"com.vaadin.guice.testClasses"}).get();
+
+        assertTrue(scanResult.getSubTypesOf(Module.class).isEmpty());
+        assertTrue(scanResult.getSubTypesOf(UI.class).contains(Target.class));
+    }
+
+    @Test
+    public void types_of_sibling_packages_should_be_ignored() throws IOException {
+        ClassLoader classLoader = classLoaderWithIndex(
+                "com.vaadin.guice.testClasses.Target=com.vaadin.flow.component.UI"
+        );
+
+        ScanResult scanResult = TypeIndex.load(classLoader, new String[]{"com.vaadin.guice.testClass"}).get();
+
+        assertTrue(scanResult.getSubTypesOf(UI.class).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void stale_index_should_fail() throws IOException {
+        ClassLoader classLoader = classLoaderWithIndex("com.vaadin.guice.DoesNotExist=com.google.inject.Module");
+
+        TypeIndex.load(classLoader, new String[]{"com.vaadin.guice"});
+    }
+
+    private ClassLoader classLoaderWithIndex(String... lines) throws IOException {
+        File root = temporaryFolder.newFolder();
+
+        File index = new File(root, TypeIndex.LOCATION);
+
+        assertTrue(index.getParentFile().mkdirs());
+
+        Files.write(index.toPath(), asList(lines));
+
+        return classLoaderFor(root);
+    }
+
+    private ClassLoader classLoaderFor(File root) throws IOException {
+        //no parent, so an index on the test-classpath cannot interfere
+        ClassLoader resources = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+
+        return new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                return resources.getResources(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.SessionDestroyEvent;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class UIScopeTest {
+
+    private final VaadinService vaadinService = Mockito.mock(VaadinService.class);
+    private final UIScope uiScope = new UIScope();
+    private final AtomicInteger instances = new AtomicInteger();
+    private final Provider<Object> provider = uiScope.scope(Key.get(Object.class), () -> {
+        instances.incrementAndGet();
+        return new Object();
+    });
+
+    @After
+    public void tearDown() {
+        VaadinSession.setCurrent(null);
+        UI.setCurrent(null);
+    }
+
+    @Test
+    public void same_ui_should_get_same_instance() {
+        setCurrent(new GuiceVaadinSession(vaadinService), new UI());
+
+        assertSame(provider.get(), provider.get());
+        assertEquals(1, instances.get());
+    }
+
+    @Test
+    public void different_uis_should_get_different_instances() {
+        GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+
+        setCurrent(session, new UI());
+
+        Object first = provider.get();
+
+        setCurrent(session, new UI());
+
+        assertNotSame(first, provider.get());
+        assertEquals(2, instances.get());
+    }
+
+    @Test
+    public void destroyed_session_should_not_hold_instances() {
+        GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+        UI ui = new UI();
+
+        setCurrent(session, ui);
+
+        provider.get();
+
+        uiScope.sessionDestroy(new SessionDestroyEvent(vaadinService, session));
+
+        assertTrue(session.getScopeStorage().getUIScopedInstances(ui, NoMetrics.INSTANCE, ScopeCleanUp.INLINE).isEmpty());
+    }
+
+    @Test
+    public void concurrent_lookups_should_create_exactly_one_instance_per_ui() throws Exception {
+        final int threads = 16;
+        final int lookups = 10_000;
+
+        final GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+        final UI[] uis = {new UI(), new UI(), new UI(), new UI()};
+
+        final Map<UI, Set<Object>> instancesByUI = new ConcurrentHashMap<>();
+        final AtomicInteger created = new AtomicInteger();
+        final Provider<Object> slowProvider = uiScope.scope(Key.get(Object.class), () -> {
+            created.incrementAndGet();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Object();
+        });
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                final UI ui = uis[i % uis.length];
+
+                futures.add(executorService.submit(() -> {
+                    setCurrent(session, ui);
+
+                    start.await();
+
+                    for (int j = 0; j < lookups; j++) {
+                        instancesByUI.computeIfAbsent(ui, u -> ConcurrentHashMap.newKeySet()).add(slowProvider.get());
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(uis.length, created.get());
+
+        for (UI ui : uis) {
+            assertEquals(1, instancesByUI.get(ui).size());
+        }
+    }
+
+    static void setCurrent(VaadinSession session, UI ui) {
+        //setting the UI resets the session to the UI's session, which is not set here
+        UI.setCurrent(ui);
+        VaadinSession.setCurrent(session);
+    }
+}
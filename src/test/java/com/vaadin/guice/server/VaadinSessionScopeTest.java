@@ -0,0 +1,125 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.vaadin.flow.server.SessionDestroyEvent;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.*;
+
+public class VaadinSessionScopeTest {
+
+    private final VaadinService vaadinService = Mockito.mock(VaadinService.class);
+    private final VaadinSessionScope vaadinSessionScope = new VaadinSessionScope();
+    private final AtomicInteger instances = new AtomicInteger();
+    private final Provider<Object> provider = vaadinSessionScope.scope(Key.get(Object.class), () -> {
+        instances.incrementAndGet();
+        return new Object();
+    });
+
+    @After
+    public void tearDown() {
+        VaadinSession.setCurrent(null);
+    }
+
+    @Test
+    public void same_session_should_get_same_instance() {
+        VaadinSession.setCurrent(new GuiceVaadinSession(vaadinService));
+
+        assertSame(provider.get(), provider.get());
+        assertEquals(1, instances.get());
+    }
+
+    @Test
+    public void different_sessions_should_get_different_instances() {
+        VaadinSession.setCurrent(new GuiceVaadinSession(vaadinService));
+
+        Object first = provider.get();
+
+        VaadinSession.setCurrent(new GuiceVaadinSession(vaadinService));
+
+        assertNotSame(first, provider.get());
+        assertEquals(2, instances.get());
+    }
+
+    @Test
+    public void destroyed_session_should_not_hold_instances() {
+        GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+
+        VaadinSession.setCurrent(session);
+
+        provider.get();
+
+        vaadinSessionScope.sessionDestroy(new SessionDestroyEvent(vaadinService, session));
+
+        assertTrue(session.getScopeStorage().getVaadinSessionScopedInstances(NoMetrics.INSTANCE).isEmpty());
+    }
+
+    @Test
+    public void foreign_session_should_keep_instances_in_attribute() {
+        final VaadinSession session = foreignSession();
+
+        VaadinSession.setCurrent(session);
+
+        assertSame(provider.get(), provider.get());
+        assertEquals(1, instances.get());
+
+        session.getLockInstance().lock();
+
+        try {
+            assertNotNull(session.getAttribute(SessionScopeStorage.class));
+        } finally {
+            session.getLockInstance().unlock();
+        }
+    }
+
+    @Test
+    public void destroyed_foreign_session_should_not_hold_instances() {
+        final VaadinSession session = foreignSession();
+
+        VaadinSession.setCurrent(session);
+
+        provider.get();
+
+        vaadinSessionScope.sessionDestroy(new SessionDestroyEvent(vaadinService, session));
+
+        assertTrue(SessionScopeStorage.of(session).getVaadinSessionScopedInstances(NoMetrics.INSTANCE).isEmpty());
+    }
+
+    /*
+     * a session as created by a servlet overriding createServletService or createVaadinSession
+     */
+    private VaadinSession foreignSession() {
+        final Lock lock = new ReentrantLock();
+
+        return new VaadinSession(vaadinService) {
+            @Override
+            public Lock getLockInstance() {
+                return lock;
+            }
+        };
+    }
+}
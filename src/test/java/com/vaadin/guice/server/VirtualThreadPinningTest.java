@@ -0,0 +1,169 @@
+/*
+ * Copyright 2000-2017 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.guice.server;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.vaadin.guice.server.UIScopeTest.setCurrent;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Provisions in the scopes block while holding no monitor, so virtual threads running them do not pin their
+ * carrier. Pinning is detected by the jdk.VirtualThreadPinned events and, when the tests run with
+ * -Djdk.tracePinnedThreads, by the stack traces printed for pinned threads. Virtual threads need Java 21,
+ * so the tests are skipped on older versions.
+ */
+public class VirtualThreadPinningTest {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+    private static final String PINNED_MONITOR = "<== monitors";
+    private static final int THREADS = 16;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final VaadinService vaadinService = Mockito.mock(VaadinService.class);
+    private final Recording recording = new Recording();
+    private final ByteArrayOutputStream tracedPinning = new ByteArrayOutputStream();
+    private PrintStream out;
+    private ExecutorService virtualThreads;
+
+    @Before
+    public void setup() throws ReflectiveOperationException {
+        assumeTrue("virtual threads need Java 21", Runtime.version().feature() >= 21);
+
+        //compiled for Java 17, so the factory of virtual threads is looked up at runtime
+        virtualThreads = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+
+        out = System.out;
+        System.setOut(new PrintStream(tracedPinning, true));
+
+        recording.enable(PINNED).withThreshold(Duration.ZERO).withStackTrace();
+        recording.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdownNow();
+            System.setOut(out);
+        }
+
+        recording.close();
+    }
+
+    @Test
+    public void blocking_provisions_in_scopes_should_not_pin_virtual_threads() throws Exception {
+        final Provider<Object> uiScoped = new UIScope().scope(Key.get(Object.class, Names.named("ui")), this::blockingProvision);
+        final Provider<Object> sessionScoped = new VaadinSessionScope().scope(Key.get(Object.class, Names.named("session")), this::blockingProvision);
+
+        final GuiceVaadinSession session = new GuiceVaadinSession(vaadinService);
+        final UI ui = new UI();
+
+        //all threads ask for the same keys, so one creates each instance while the others wait for it
+        final List<Future<List<Object>>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(virtualThreads.submit(() -> {
+                setCurrent(session, ui);
+
+                return List.of(uiScoped.get(), sessionScoped.get());
+            }));
+        }
+
+        final List<Object> first = futures.get(0).get(10, TimeUnit.SECONDS);
+
+        for (Future<List<Object>> future : futures) {
+            assertEquals(first, future.get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of(), pinnedEvents());
+        assertFalse(tracedPinning.toString(), tracedPinning.toString().contains(PINNED_MONITOR));
+    }
+
+    /**
+     * makes sure pinning would be detected, since Java 24 monitors do not pin virtual threads anymore
+     */
+    @Test
+    public void blocking_in_a_monitor_should_be_detected_as_pinning() throws Exception {
+        assumeTrue("monitors only pin virtual threads before Java 24", Runtime.version().feature() < 24);
+
+        final Object monitor = new Object();
+
+        virtualThreads.submit((Callable<Object>) () -> {
+            synchronized (monitor) {
+                return blockingProvision();
+            }
+        }).get(10, TimeUnit.SECONDS);
+
+        assertFalse(pinnedEvents().isEmpty());
+
+        if (System.getProperty("jdk.tracePinnedThreads") != null) {
+            assertTrue(tracedPinning.toString().contains(PINNED_MONITOR));
+        }
+    }
+
+    private Object blockingProvision() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return new Object();
+    }
+
+    private List<String> pinnedEvents() throws Exception {
+        recording.stop();
+
+        final Path file = temporaryFolder.newFile("recording.jfr").toPath();
+
+        recording.dump(file);
+
+        return RecordingFile.readAllEvents(file)
+                .stream()
+                .filter(event -> event.getEventType().getName().equals(PINNED))
+                .map(RecordedEvent::toString)
+                .collect(Collectors.toList());
+    }
+}